@@ -13,6 +13,7 @@ plugins {
     alias(libs.plugins.shadow)
     alias(libs.plugins.toxopid)
     alias(libs.plugins.errorprone.gradle)
+    alias(libs.plugins.jmh)
 }
 
 val metadata = ModMetadata.fromJson(rootProject.file("plugin.json"))
@@ -54,10 +55,16 @@ dependencies {
 
     testImplementation(libs.junit.api)
     testRuntimeOnly(libs.junit.engine)
+    testImplementation(toxopid.dependencies.mindustryCore)
+    testImplementation(toxopid.dependencies.arcCore)
 
     compileOnly(libs.checker.qual)
     testCompileOnly(libs.checker.qual)
 
+    jmh(toxopid.dependencies.mindustryCore)
+    jmh(toxopid.dependencies.arcCore)
+    jmh(libs.checker.qual)
+
     annotationProcessor(libs.nullaway)
     errorprone(libs.errorprone.core)
 }
@@ -145,7 +152,7 @@ tasks.withType<JavaCompile> {
     options.errorprone {
         disableWarningsInGeneratedCode = true
         disable("MissingSummary", "InlineMeSuggester")
-        if (!name.contains("test", ignoreCase = true)) {
+        if (!name.contains("test", ignoreCase = true) && !name.contains("jmh", ignoreCase = true)) {
             check("NullAway", CheckSeverity.ERROR)
             option("NullAway:AnnotatedPackages", rootPackage)
             option("NullAway:TreatGeneratedAsUnannotated", true)
@@ -153,6 +160,13 @@ tasks.withType<JavaCompile> {
     }
 }
 
+jmh {
+    jmhVersion = libs.versions.jmh
+    benchmarkMode = listOf("thrpt")
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+}
+
 val downloadSlf4md by tasks.registering(GithubAssetDownload::class) {
     owner = "xpdustry"
     repo = "slf4md"
@@ -170,3 +184,30 @@ val downloadDistributorCommon by tasks.registering(GithubAssetDownload::class) {
 tasks.runMindustryServer {
     mods.from(downloadSlf4md, downloadDistributorCommon)
 }
+
+val simulation: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += output + compileClasspath + sourceSets.main.get().runtimeClasspath
+}
+
+dependencies {
+    "simulationImplementation"("com.github.anuken.arc:backend-headless:v${metadata.minGameVersion}")
+    "simulationRuntimeOnly"(toxopid.dependencies.mindustryCore)
+    "simulationRuntimeOnly"(toxopid.dependencies.arcCore)
+}
+
+// The server of the simulation loads the plugin and its dependencies from its mods directory, reset on each run
+val prepareSimulation by tasks.registering(Sync::class) {
+    from(tasks.shadowJar, downloadSlf4md, downloadDistributorCommon)
+    into(layout.buildDirectory.dir("simulation/mods"))
+}
+
+tasks.register<JavaExec>("runSimulation") {
+    group = "verification"
+    description = "Runs a headless load test of the domination plugin on a Mindustry server."
+    dependsOn(prepareSimulation)
+    classpath = simulation.runtimeClasspath
+    mainClass = "$rootPackage.Simulation"
+    systemProperty("simulation.directory", layout.buildDirectory.dir("simulation").get().asFile.absolutePath)
+    args((findProperty("simulation.args") as String?)?.split(" ") ?: emptyList<String>())
+}
@@ -0,0 +1,86 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CaptureBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int zones;
+
+    @Param({"100", "1000", "10000"})
+    private int units;
+
+    private SyntheticLayout layout;
+    private ZoneTable table;
+    private ZoneOccupancy occupancy;
+    private CaptureEvaluator evaluator;
+    private double clock = 0D;
+
+    @Setup
+    public void setup() {
+        layout = new SyntheticLayout(zones, units);
+        table = layout.createState().getTable();
+        occupancy = new ZoneOccupancy();
+        occupancy.rebuild(table, SyntheticLayout.SIZE, SyntheticLayout.SIZE);
+        evaluator = new CaptureEvaluator(team -> true);
+        layout.track(occupancy);
+    }
+
+    @Benchmark
+    public int occupancy() {
+        layout.move();
+        layout.track(occupancy);
+        return occupancy.getLeader(0).id;
+    }
+
+    // The units are moved and tracked out of the measurement, so only the evaluation of the zones is measured
+    @Benchmark
+    public int capture(final MovedUnits moved) {
+        clock += 10D;
+        evaluator.evaluate(table, occupancy, clock, 10F, table.size());
+        return evaluator.getCaptured().size;
+    }
+
+    @State(Scope.Thread)
+    public static class MovedUnits {
+
+        @Setup(Level.Invocation)
+        public void move(final CaptureBenchmark benchmark) {
+            benchmark.layout.move();
+            benchmark.layout.track(benchmark.occupancy);
+        }
+    }
+}
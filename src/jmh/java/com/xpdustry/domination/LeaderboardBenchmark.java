@@ -0,0 +1,67 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.util.concurrent.TimeUnit;
+import mindustry.game.Team;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LeaderboardBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int zones;
+
+    private SyntheticLayout layout;
+    private DominationState state;
+
+    @Setup
+    public void setup() {
+        layout = new SyntheticLayout(zones, 0);
+        state = layout.createState();
+        final var table = state.getTable();
+        for (int i = 0; i < table.size(); i++) {
+            table.setTeam(i, Team.all[1 + layout.random.nextInt(SyntheticLayout.TEAMS)]);
+        }
+    }
+
+    @Benchmark
+    public void leaderboard(final Blackhole blackhole) {
+        state.getTable().setCapture(layout.random.nextInt(zones), layout.random.nextInt(101));
+        final var leaderboard = state.getLeaderboard();
+        blackhole.consume(leaderboard.getDominatingTeam());
+        blackhole.consume(leaderboard.getLeader());
+        for (int i = 0; i < leaderboard.size(); i++) {
+            blackhole.consume(leaderboard.getCapture(leaderboard.getTeam(i)));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import mindustry.Vars;
+
+// Zones laid on a grid and units scattered over a square map, generated from a fixed seed
+final class SyntheticLayout {
+
+    static final int SIZE = 500;
+    static final int TEAMS = 4;
+
+    final List<Zone> zones = new ArrayList<>();
+    final int[] xs;
+    final int[] ys;
+    final int[] teams;
+    final Random random = new Random(0xD0D0L);
+
+    SyntheticLayout(final int zones, final int units) {
+        final int columns = (int) Math.ceil(Math.sqrt(zones));
+        final int spacing = SIZE / (columns + 1);
+        for (int i = 0; i < zones; i++) {
+            this.zones.add(new Zone(
+                    ((i % columns) + 1) * spacing * Vars.tilesize, ((i / columns) + 1) * spacing * Vars.tilesize, 5));
+        }
+        xs = new int[units];
+        ys = new int[units];
+        teams = new int[units];
+        for (int i = 0; i < units; i++) {
+            xs[i] = random.nextInt(SIZE);
+            ys[i] = random.nextInt(SIZE);
+            teams[i] = 1 + random.nextInt(TEAMS);
+        }
+    }
+
+    // Moves one unit out of ten by one tile
+    void move() {
+        for (int i = random.nextInt(10); i < xs.length; i += 10) {
+            xs[i] = Math.floorMod(xs[i] + random.nextInt(3) - 1, SIZE);
+            ys[i] = Math.floorMod(ys[i] + random.nextInt(3) - 1, SIZE);
+        }
+    }
+
+    void track(final ZoneOccupancy occupancy) {
+        occupancy.begin();
+        for (int i = 0; i < xs.length; i++) {
+            occupancy.track(i, xs[i], ys[i], teams[i]);
+        }
+        occupancy.end(xs.length);
+    }
+
+    DominationState createState() {
+        return new DominationState(zones, ignored -> {});
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntSeq;
+import arc.util.Time;
+import java.util.Arrays;
+import java.util.function.Predicate;
+import mindustry.game.Team;
+
+// Moves the capture of each zone towards the team with the most units in it
+final class CaptureEvaluator {
+
+    // In percent per second, a zone held by another team takes 100 / 6 seconds to drain, then as much to fill up
+    static final int CAPTURE_SPEED = 6;
+
+    private final Predicate<Team> active;
+    private final IntSeq captured = new IntSeq();
+    // The time of the last evaluation of each zone, and the time it is due again, in ticks
+    private double[] stamps = new double[0];
+    private double[] deadlines = new double[0];
+    private int cursor = 0;
+
+    CaptureEvaluator(final Predicate<Team> active) {
+        this.active = active;
+    }
+
+    // Forgets the evaluation times, the zones will be due one after the other over the next interval,
+    // so their evaluations stay spread over its frames instead of all coming due in the same one
+    void reset(final int zones, final double now, final float interval) {
+        stamps = new double[zones];
+        Arrays.fill(stamps, now);
+        deadlines = new double[zones];
+        for (int i = 0; i < zones; i++) {
+            deadlines[i] = now + ((double) interval * (i + 1) / zones);
+        }
+        cursor = 0;
+    }
+
+    // Whether the next zone in round-robin order is due, or the zones changed since the last evaluation
+    boolean isDue(final ZoneTable zones, final double now) {
+        return stamps.length != zones.size() || (zones.size() > 0 && now >= deadlines[cursor]);
+    }
+
+    // Evaluates the zones that were not evaluated for at least the given interval, in round-robin order and up
+    // to the given limit, the zones being spread over the frames of the interval. The times are in ticks, and the
+    // capture progresses with the time elapsed since the last evaluation of each zone, however often it happens.
+    // Returns the number of zones evaluated.
+    int evaluate(
+            final ZoneTable zones,
+            final ZoneOccupancy occupancy,
+            final double now,
+            final float interval,
+            final int limit) {
+        if (stamps.length != zones.size()) {
+            reset(zones.size(), now, interval);
+        }
+        captured.clear();
+        int evaluated = 0;
+        // The zones are evaluated in order, so once one of them is not due, the next ones aren't either
+        while (evaluated < Math.min(limit, zones.size()) && now >= deadlines[cursor]) {
+            evaluateZone(zones, occupancy, cursor, (float) (now - stamps[cursor]));
+            stamps[cursor] = now;
+            deadlines[cursor] = now + interval;
+            cursor = (cursor + 1) % zones.size();
+            evaluated++;
+        }
+        return evaluated;
+    }
+
+    private void evaluateZone(final ZoneTable zones, final ZoneOccupancy occupancy, final int i, final float elapsed) {
+        // Reset the team if the team got beaten
+        if (zones.getTeam(i) != Team.derelict && !active.test(zones.getTeam(i))) {
+            commit(zones, i, Team.derelict);
+            zones.setTeam(i, Team.derelict);
+            zones.setCapture(i, 100);
+        }
+
+        // Search for the team with the most units
+        final var winner = occupancy.getLeader(i);
+
+        // Updates the zone values
+        if (winner != Team.derelict) {
+            final int step = Math.round((elapsed / Time.toSeconds) * CAPTURE_SPEED * (1 << ZoneTable.CAPTURE_SHIFT));
+            if (zones.getTeam(i) == winner) {
+                zones.advance(i, step);
+            } else if (zones.advance(i, -step) == 0) {
+                commit(zones, i, winner);
+                zones.setTeam(i, winner);
+                captured.add(i);
+            }
+        }
+    }
+
+    private static void commit(final ZoneTable zones, final int zone, final Team team) {
+        final var event = new DominationEvents.ZoneCapture();
+        if (event.shouldCommit()) {
+            event.x = zones.getX(zone);
+            event.y = zones.getY(zone);
+            event.previous = zones.getTeam(zone).name;
+            event.team = team.name;
+            event.commit();
+        }
+    }
+
+    // The indexes of the zones that changed team during the last evaluation
+    IntSeq getCaptured() {
+        return captured;
+    }
+}
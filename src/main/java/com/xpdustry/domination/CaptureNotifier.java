@@ -0,0 +1,189 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntFloatMap;
+import arc.struct.IntIntMap;
+import arc.struct.IntSeq;
+import arc.util.Time;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+import mindustry.game.Team;
+import mindustry.gen.Call;
+import mindustry.gen.Groups;
+import mindustry.gen.Iconc;
+import mindustry.gen.Player;
+
+// Batches the captures into toasts with one line per team,
+// the players in cooldown keep their captures for their next toast
+final class CaptureNotifier {
+
+    // The number of zone positions listed per team, the others are summarized
+    private static final int LISTED = 3;
+
+    private final int[] counts = new int[Team.all.length];
+    private final StringBuilder[] positions = new StringBuilder[Team.all.length];
+    private final IntSeq teams = new IntSeq();
+    private final StringBuilder message = new StringBuilder(100);
+    // The team and tile position of the captures some players were not told about yet
+    private final IntSeq captures = new IntSeq();
+    // The number of captures of the game before the first held one, and in total
+    private int first = 0;
+    private int total = 0;
+    // The number of captures of the game each player was told about
+    private final IntIntMap seen = new IntIntMap();
+    // The time of the last toast of each player, in seconds since the creation of the notifier
+    private final IntFloatMap toasts = new IntFloatMap();
+    private final long epoch = Time.millis();
+
+    void add(final ZoneTable zones, final int zone) {
+        add(zones.getTeam(zone).id, zones.getTileX(zone), zones.getTileY(zone));
+    }
+
+    void add(final int team, final int x, final int y) {
+        captures.add(team);
+        captures.add(x);
+        captures.add(y);
+        total++;
+    }
+
+    boolean isPending() {
+        return first < total;
+    }
+
+    // Sends the captures they missed to the players that didn't receive a toast during the cooldown,
+    // returns the number of toasts sent
+    int flush(final float cooldown) {
+        return flush(
+                Groups.player,
+                Player::id,
+                (player, text) -> Call.warningToast(player.con(), Iconc.warning, text),
+                cooldown,
+                Time.timeSinceMillis(epoch) / 1000F);
+    }
+
+    // The time is in seconds since the creation of the notifier
+    <P> int flush(
+            final Iterable<P> players,
+            final ToIntFunction<P> ids,
+            final BiConsumer<P, String> toast,
+            final float cooldown,
+            final float now) {
+        if (first == total) {
+            return 0;
+        }
+
+        int held = total;
+        int sent = 0;
+        int built = -1;
+        String text = "";
+        for (final var player : players) {
+            final int id = ids.applyAsInt(player);
+            final int from = Math.max(first, seen.get(id, 0));
+            if (from == total) {
+                continue;
+            }
+            final float elapsed = now - toasts.get(id, Float.NEGATIVE_INFINITY);
+            if (elapsed < cooldown) {
+                held = Math.min(held, from);
+                continue;
+            }
+            // The players are usually told about the same captures, so the message is shared
+            if (from != built) {
+                text = format(from);
+                built = from;
+            }
+            seen.put(id, total);
+            toasts.put(id, now);
+            toast.accept(player, text);
+            sent++;
+        }
+
+        // The captures every player was told about are dropped
+        final int dropped = (held - first) * 3;
+        System.arraycopy(captures.items, dropped, captures.items, 0, captures.size - dropped);
+        captures.size -= dropped;
+        first = held;
+        return sent;
+    }
+
+    private String format(final int from) {
+        for (int i = (from - first) * 3; i < captures.size; i += 3) {
+            final int team = captures.items[i];
+            if (counts[team]++ == 0) {
+                teams.add(team);
+                if (positions[team] == null) {
+                    positions[team] = new StringBuilder(32);
+                }
+                positions[team].setLength(0);
+            }
+            if (counts[team] <= LISTED) {
+                final var builder = positions[team];
+                if (builder.length() > 0) {
+                    builder.append(", ");
+                }
+                builder.append('(')
+                        .append(captures.items[i + 1])
+                        .append(", ")
+                        .append(captures.items[i + 2])
+                        .append(')');
+            }
+        }
+
+        message.setLength(0);
+        for (int i = 0; i < teams.size; i++) {
+            final int id = teams.items[i];
+            final var team = Team.all[id];
+            if (i > 0) {
+                message.append('\n');
+            }
+            message.append("[#").append(team.color).append(']').append(team.name);
+            if (counts[id] == 1) {
+                message.append("[] captured a zone at ");
+            } else {
+                message.append("[] captured ").append(counts[id]).append(" zones at ");
+            }
+            message.append(positions[id]);
+            if (counts[id] > LISTED) {
+                message.append(" and ").append(counts[id] - LISTED).append(" more");
+            }
+            message.append('.');
+            counts[id] = 0;
+        }
+        teams.clear();
+        return message.toString();
+    }
+
+    // The players joining mid-game are only told about the next captures
+    void join(final int player) {
+        seen.put(player, total);
+    }
+
+    void remove(final int player) {
+        seen.remove(player, 0);
+        toasts.remove(player, 0F);
+    }
+
+    void clear() {
+        captures.clear();
+        seen.clear();
+        first = 0;
+        total = 0;
+    }
+}
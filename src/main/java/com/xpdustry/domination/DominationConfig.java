@@ -0,0 +1,86 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.time.Duration;
+
+public final class DominationConfig {
+
+    private int playerEffectBudget = 64;
+    private int totalEffectBudget = 1024;
+    private ZoneFormat zoneFormat = ZoneFormat.LEGACY;
+    private Duration captureInterval = Duration.ofMillis(167L);
+    private int captureSlice = 32;
+    private boolean loadGovernor = true;
+    private int parallelOccupancyThreshold = 0;
+    private Duration metricsInterval = Duration.ofMinutes(1L);
+    private Duration notificationWindow = Duration.ofSeconds(1L);
+    private Duration notificationCooldown = Duration.ofSeconds(3L);
+    private boolean asyncCommands = false;
+
+    public int getPlayerEffectBudget() {
+        return playerEffectBudget;
+    }
+
+    public int getTotalEffectBudget() {
+        return totalEffectBudget;
+    }
+
+    public ZoneFormat getZoneFormat() {
+        return zoneFormat;
+    }
+
+    public Duration getCaptureInterval() {
+        return captureInterval;
+    }
+
+    public int getCaptureSlice() {
+        return captureSlice;
+    }
+
+    public boolean isLoadGovernor() {
+        return loadGovernor;
+    }
+
+    // The number of units from which the zone occupancy is computed in parallel, 0 to never do it
+    public int getParallelOccupancyThreshold() {
+        return parallelOccupancyThreshold;
+    }
+
+    public Duration getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public Duration getNotificationWindow() {
+        return notificationWindow;
+    }
+
+    public Duration getNotificationCooldown() {
+        return notificationCooldown;
+    }
+
+    public boolean isAsyncCommands() {
+        return asyncCommands;
+    }
+
+    // The number of effects a player can receive per render tick, when the given number of players are rendered
+    public int getEffectBudget(final int players) {
+        return Math.max(1, Math.min(playerEffectBudget, totalEffectBudget / Math.max(1, players)));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events, disabled unless enabled in the recording settings
+final class DominationEvents {
+
+    private DominationEvents() {}
+
+    @Name("com.xpdustry.domination.CaptureTick")
+    @Label("Capture Tick")
+    @Description("Occupancy update, capture evaluation and win check of the zones")
+    @Category({"Domination", "Logic"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CaptureTick extends Event {
+
+        @Label("Zones Evaluated")
+        int zones;
+
+        @Label("Units Scanned")
+        int units;
+
+        @Label("Captures")
+        int captures;
+    }
+
+    @Name("com.xpdustry.domination.ZoneCapture")
+    @Label("Zone Capture")
+    @Description("A zone changed owner")
+    @Category({"Domination", "Logic"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ZoneCapture extends Event {
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Previous Team")
+        String previous = "";
+
+        @Label("Team")
+        String team = "";
+    }
+
+    @Name("com.xpdustry.domination.RenderPass")
+    @Label("Render Pass")
+    @Description("Effects, labels and HUD sent to the players")
+    @Category({"Domination", "Rendering"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class RenderPass extends Event {
+
+        @Label("Players")
+        int players;
+
+        @Label("Packets Emitted")
+        int packets;
+    }
+
+    @Name("com.xpdustry.domination.ZoneSave")
+    @Label("Zone Save")
+    @Description("The zones of a map were written to their file")
+    @Category({"Domination", "Persistence"})
+    @Enabled(false)
+    static final class ZoneSave extends Event {
+
+        @Label("File")
+        String file = "";
+
+        @Label("Zones")
+        int zones;
+    }
+}
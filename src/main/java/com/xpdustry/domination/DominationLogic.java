@@ -18,20 +18,20 @@
  */
 package com.xpdustry.domination;
 
-import arc.struct.ObjectIntMap;
+import arc.Core;
 import arc.util.CommandHandler;
 import arc.util.Interval;
 import arc.util.Time;
 import com.xpdustry.distributor.api.Distributor;
 import com.xpdustry.distributor.api.plugin.PluginListener;
-import java.util.ArrayList;
+import java.time.Duration;
 import mindustry.Vars;
 import mindustry.game.EventType;
 import mindustry.game.EventType.GameOverEvent;
 import mindustry.game.Team;
 import mindustry.gen.Call;
 import mindustry.gen.Groups;
-import mindustry.gen.Iconc;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.incendo.cloud.description.CommandDescription;
 
 public final class DominationLogic implements PluginListener {
@@ -45,8 +45,21 @@ public final class DominationLogic implements PluginListener {
             To see this message again, do [orange]/domination rules[].
             """;
 
+    // Switching back to the sequential scan tracks every unit again, so it only happens well below the threshold
+    private static final float PARALLEL_HYSTERESIS = 0.75F;
+
     private final DominationPlugin domination;
-    private final Interval interval = new Interval();
+    private final Interval notifications = new Interval();
+    // The game time of the current domination game, and of the last unit scan, in ticks
+    private double clock = 0D;
+    private double scanned = 0D;
+    private final ZoneOccupancy occupancy = new ZoneOccupancy();
+    private final ParallelOccupancy parallel = new ParallelOccupancy();
+    private boolean parallelized = false;
+    private final CaptureEvaluator evaluator = new CaptureEvaluator(Team::active);
+    private final CaptureNotifier notifier = new CaptureNotifier();
+    private @Nullable DominationState indexed = null;
+    private int revision = -1;
 
     public DominationLogic(final DominationPlugin domination) {
         this.domination = domination;
@@ -55,10 +68,30 @@ public final class DominationLogic implements PluginListener {
     @Override
     public void onPluginInit() {
         Distributor.get().getEventBus().subscribe(EventType.PlayerJoin.class, domination, event -> {
+            notifier.join(event.player.id());
             if (this.domination.isEnabled()) {
                 Call.infoMessage(event.player.con(), DOMINATION_RULES);
             }
         });
+        Distributor.get().getEventBus().subscribe(EventType.PlayEvent.class, domination, event -> {
+            notifier.clear();
+            clock = 0D;
+            scanned = 0D;
+            rebuildIndex();
+        });
+        Distributor.get()
+                .getEventBus()
+                .subscribe(EventType.PlayerLeave.class, domination, event -> notifier.remove(event.player.id()));
+        Distributor.get().getEventBus().subscribe(EventType.UnitCreateEvent.class, domination, event -> {
+            if (indexed == domination.getState()) {
+                occupancy.add(event.unit);
+            }
+        });
+        Distributor.get().getEventBus().subscribe(EventType.UnitDestroyEvent.class, domination, event -> {
+            if (indexed == domination.getState()) {
+                occupancy.remove(event.unit);
+            }
+        });
     }
 
     @Override
@@ -70,94 +103,128 @@ public final class DominationLogic implements PluginListener {
                         .commandBuilder("domination")
                         .literal("rules")
                         .commandDescription(CommandDescription.commandDescription("Display the domination rules"))
-                        .handler(context -> {
+                        .handler(context -> Core.app.post(() -> {
                             Call.infoMessage(context.sender().getPlayer().con(), DOMINATION_RULES);
-                        }));
+                        })));
+    }
+
+    @Override
+    public void onPluginExit() {
+        parallel.close();
+    }
+
+    private void rebuildIndex() {
+        final var state = domination.getState();
+        if (state == null) {
+            return;
+        }
+        occupancy.rebuild(state.getTable(), Vars.world.width(), Vars.world.height());
+        evaluator.reset(state.getTable().size(), clock, toTicks(domination.getConfig().getCaptureInterval()));
+        indexed = state;
+        revision = state.getRevision();
+    }
+
+    private static float toTicks(final Duration duration) {
+        return (duration.toMillis() / 1000F) * Time.toSeconds;
     }
 
     @Override
     public void onPluginUpdate() {
-        if (interval.get(Time.toSeconds / 6) && Vars.state.isPlaying() && domination.isEnabled()) {
-            for (final var zone : domination.getState().getZones()) {
-                // Reset the team if the team got beaten
-                if (zone.getTeam() != Team.derelict && !zone.getTeam().active()) {
-                    zone.setTeam(Team.derelict);
-                    zone.setCapture(100);
-                }
+        if (!Vars.state.isPlaying() || !domination.isEnabled()) {
+            return;
+        }
+        clock += Time.delta;
 
-                // Count the number of units in the zone, per team
-                final var units = new ObjectIntMap<Team>();
-                Groups.unit.each(
-                        unit -> unit.within(zone.getX(), zone.getY(), zone.getRadius()) && !unit.spawnedByCore(),
-                        unit -> units.increment(unit.team()));
-
-                // Search for the team with the most units
-                var winner = Team.derelict;
-                int max = 0;
-
-                for (final var entry : units) {
-                    if (entry.value > max) {
-                        winner = entry.key;
-                        max = entry.value;
-                    } else if (entry.value == max) {
-                        // If 2 teams have the same number of units, don't update so set back to derelict.
-                        winner = Team.derelict;
-                    }
-                }
+        // Zones edited since the last build, update the tile index
+        if (indexed != domination.getState() || revision != domination.getState().getRevision()) {
+            rebuildIndex();
+        }
 
-                // Updates the zone values
-                if (winner != Team.derelict) {
-                    final int rate = 1;
-                    if (zone.getTeam() == winner) {
-                        zone.setCapture(Math.min(zone.getCapture() + rate, 100));
-                    } else {
-                        zone.setCapture(Math.max(zone.getCapture() - rate, 0));
-                        if (zone.getCapture() == 0) {
-                            Call.warningToast(
-                                    Iconc.warning,
-                                    String.format(
-                                            "[#%s]%s[] captured a zone at (%d, %d).",
-                                            winner.color, winner.name, zone.getX() / 8, zone.getY() / 8));
-                            zone.setTeam(winner);
-                        }
-                    }
+        final var config = domination.getConfig();
+        final float interval = toTicks(config.getCaptureInterval());
+        final var metrics = domination.getMetrics();
+        long start = System.nanoTime();
+
+        // The counts computed in the background are applied as soon as they are ready
+        parallel.apply(occupancy);
+
+        // Nothing to scan, evaluate nor announce on most frames, which stay allocation free
+        final var zones = domination.getState().getTable();
+        final boolean scan = clock - scanned >= interval;
+        final float window = toTicks(config.getNotificationWindow());
+        if (!scan
+                && !evaluator.isDue(zones, clock)
+                && !(notifier.isPending() && notifications.check(0, window))) {
+            return;
+        }
+        final var event = new DominationEvents.CaptureTick();
+        event.begin();
+
+        // Update the number of units in each zone, per team
+        if (scan) {
+            scanned = clock;
+            final int threshold = config.getParallelOccupancyThreshold();
+            final int units = Groups.unit.size();
+            if (threshold > 0
+                    && (units >= threshold || (parallelized && units >= threshold * PARALLEL_HYSTERESIS))) {
+                // Skip this scan if the previous one is still running
+                if (!parallel.isPending()) {
+                    parallel.submit(occupancy);
                 }
-            }
-
-            final var leaderboard = domination.getState().getLeaderboard();
-            if (leaderboard.size() == 1) {
-                final var entry = leaderboard.entrySet().iterator().next();
-                if (!entry.getKey().equals(Team.derelict)
-                        && entry.getValue() == domination.getState().getZones().size() * 100) {
-                    Distributor.get().getEventBus().post(new GameOverEvent(entry.getKey()));
-                    return;
+                parallelized = true;
+            } else {
+                // The counts left by the parallel scans don't match the tracked units, start over
+                if (parallelized) {
+                    parallel.cancel();
+                    occupancy.clear();
+                    parallelized = false;
                 }
+                // Only from the units that moved
+                occupancy.update();
             }
+            metrics.countUnits(Groups.unit.size());
+            start = metrics.record(DominationMetrics.Phase.OCCUPANCY, start);
+        }
 
-            if (domination.getState().getRemainingTime().isZero()) {
-                int max = 0;
-                final var winners = new ArrayList<Team>();
-
-                for (final var entry : leaderboard.entrySet()) {
-                    if (entry.getKey() == Team.derelict) {
-                        continue;
-                    }
-
-                    if (entry.getValue() > max) {
-                        winners.clear();
-                        winners.add(entry.getKey());
-                        max = entry.getValue();
-                    } else if (entry.getValue() == max) {
-                        winners.add(entry.getKey());
-                    }
-                }
+        // Evaluate the zones that are due, they are staggered over the frames of the interval, a slice at most
+        final int slice = config.getCaptureSlice() > 0 ? config.getCaptureSlice() : zones.size();
+        final int evaluated = evaluator.evaluate(zones, occupancy, clock, interval, slice);
+        zones.publish();
+        for (int i = 0; i < evaluator.getCaptured().size; i++) {
+            notifier.add(zones, evaluator.getCaptured().items[i]);
+        }
 
-                if (winners.size() == 1) {
-                    Distributor.get().getEventBus().post(new GameOverEvent(winners.get(0)));
-                } else {
-                    Distributor.get().getEventBus().post(new GameOverEvent(Team.derelict));
-                }
+        // The captures are announced at most once per window, the first ones right away
+        if (notifier.isPending() && notifications.get(window)) {
+            final int sent = notifier.flush(config.getNotificationCooldown().toMillis() / 1000F);
+            metrics.count(DominationMetrics.Packet.TOAST, sent);
+            metrics.countStrings(1);
+        }
+
+        start = metrics.record(DominationMetrics.Phase.CAPTURE, start);
+
+        final var leaderboard = domination.getState().getLeaderboard();
+        final var dominating = leaderboard.getDominatingTeam();
+        final var timeout = domination.getState().getRemainingTime().isZero();
+        metrics.record(DominationMetrics.Phase.WIN_CHECK, start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.zones = evaluated;
+            if (scan) {
+                event.units = Groups.unit.size();
             }
+            event.captures = evaluator.getCaptured().size;
+            event.commit();
+        }
+
+        if (dominating != null) {
+            Distributor.get().getEventBus().post(new GameOverEvent(dominating));
+            return;
+        }
+
+        if (timeout) {
+            Distributor.get().getEventBus().post(new GameOverEvent(leaderboard.getLeader()));
         }
     }
 }
@@ -0,0 +1,262 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.Core;
+import arc.util.CommandHandler;
+import arc.util.Interval;
+import arc.util.Log;
+import arc.util.Strings;
+import arc.util.Time;
+import com.google.gson.stream.JsonWriter;
+import com.xpdustry.distributor.api.command.CommandSender;
+import com.xpdustry.distributor.api.command.cloud.MindustryCommandManager;
+import com.xpdustry.distributor.api.plugin.PluginListener;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.incendo.cloud.description.CommandDescription;
+
+// Low overhead counters of the work done by the plugin, only updated from the main thread
+public final class DominationMetrics implements PluginListener {
+
+    public enum Phase {
+        OCCUPANCY,
+        CAPTURE,
+        WIN_CHECK,
+        RENDER
+    }
+
+    public enum Packet {
+        EFFECT,
+        LABEL,
+        HUD,
+        TOAST,
+        WORLD_LABEL_REMOVAL
+    }
+
+    private final DominationPlugin domination;
+    private final Interval interval = new Interval();
+    private final ExecutorService dumper = Executors.newSingleThreadExecutor(runnable -> {
+        final var thread = new Thread(runnable, "domination-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Histogram[] phases = new Histogram[Phase.values().length];
+    private final long[] packets = new long[Packet.values().length];
+    private long units = 0L;
+    private long strings = 0L;
+    private long since = System.currentTimeMillis();
+
+    public DominationMetrics(final DominationPlugin domination) {
+        this.domination = domination;
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogram();
+        }
+    }
+
+    @Override
+    public void onPluginClientCommandsRegistration(final CommandHandler handler) {
+        registerStatsCommand(domination.getClientCommandManager());
+    }
+
+    @Override
+    public void onPluginServerCommandsRegistration(final CommandHandler handler) {
+        registerStatsCommand(domination.getServerCommandManager());
+    }
+
+    private void registerStatsCommand(final MindustryCommandManager<CommandSender> manager) {
+        manager.command(manager.commandBuilder("domination")
+                .literal("stats")
+                .commandDescription(
+                        CommandDescription.commandDescription("Display the domination performance metrics."))
+                .permission("com.xpdustry.domination.stats")
+                .handler(ctx -> Core.app.post(() -> ctx.sender().reply(format()))));
+        manager.command(manager.commandBuilder("domination")
+                .literal("stats")
+                .literal("reset")
+                .commandDescription(CommandDescription.commandDescription("Reset the domination performance metrics."))
+                .permission("com.xpdustry.domination.stats")
+                .handler(ctx -> Core.app.post(() -> {
+                    reset();
+                    ctx.sender().reply("The domination metrics have been reset.");
+                })));
+    }
+
+    @Override
+    public void onPluginUpdate() {
+        final var every = domination.getConfig().getMetricsInterval();
+        if (!every.isZero() && interval.get(every.toMillis() / 1000F * Time.toSeconds)) {
+            final var json = toJson();
+            final var file = domination.getDirectory().resolve("metrics.json");
+            dumper.execute(() -> {
+                try {
+                    final var temp = file.resolveSibling("metrics.json.tmp");
+                    Files.writeString(temp, json, StandardCharsets.UTF_8);
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final IOException e) {
+                    Log.err("Failed to write the domination metrics", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPluginExit() {
+        dumper.shutdown();
+    }
+
+    // Returns the current time, so consecutive phases can be chained
+    public long record(final Phase phase, final long start) {
+        final long now = System.nanoTime();
+        phases[phase.ordinal()].record(now - start);
+        return now;
+    }
+
+    public void count(final Packet packet, final int count) {
+        packets[packet.ordinal()] += count;
+    }
+
+    public void countUnits(final int count) {
+        units += count;
+    }
+
+    public void countStrings(final int count) {
+        strings += count;
+    }
+
+    public void reset() {
+        for (final var phase : phases) {
+            phase.reset();
+        }
+        Arrays.fill(packets, 0L);
+        units = 0L;
+        strings = 0L;
+        since = System.currentTimeMillis();
+    }
+
+    public String format() {
+        final var builder = new StringBuilder(512)
+                .append("[orange]Domination metrics over the last ")
+                .append(Strings.formatMillis(System.currentTimeMillis() - since))
+                .append("[]");
+        for (final var phase : Phase.values()) {
+            final var histogram = phases[phase.ordinal()];
+            builder.append("\n- ")
+                    .append(phase.name().toLowerCase(Locale.ROOT))
+                    .append(": ")
+                    .append(histogram.count)
+                    .append(" ticks, mean ")
+                    .append(micros(histogram.count == 0 ? 0 : histogram.sum / histogram.count))
+                    .append(", p99 < ")
+                    .append(micros(histogram.percentile(0.99)))
+                    .append(", max ")
+                    .append(micros(histogram.max));
+        }
+        builder.append("\n- units scanned: ").append(units);
+        builder.append("\n- strings built: ").append(strings);
+        for (final var packet : Packet.values()) {
+            builder.append("\n- ")
+                    .append(packet.name().toLowerCase(Locale.ROOT).replace('_', ' '))
+                    .append(" packets: ")
+                    .append(packets[packet.ordinal()]);
+        }
+        return builder.toString();
+    }
+
+    private String toJson() {
+        final var output = new StringWriter();
+        try (final var writer = new JsonWriter(output)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            writer.name("since").value(since);
+            writer.name("timestamp").value(System.currentTimeMillis());
+            writer.name("phases").beginObject();
+            for (final var phase : Phase.values()) {
+                final var histogram = phases[phase.ordinal()];
+                writer.name(phase.name().toLowerCase(Locale.ROOT)).beginObject();
+                writer.name("count").value(histogram.count);
+                writer.name("sum-nanos").value(histogram.sum);
+                writer.name("max-nanos").value(histogram.max);
+                writer.name("p50-nanos").value(histogram.percentile(0.50));
+                writer.name("p99-nanos").value(histogram.percentile(0.99));
+                writer.endObject();
+            }
+            writer.endObject();
+            writer.name("units-scanned").value(units);
+            writer.name("strings-built").value(strings);
+            writer.name("packets").beginObject();
+            for (final var packet : Packet.values()) {
+                writer.name(packet.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                        .value(packets[packet.ordinal()]);
+            }
+            writer.endObject();
+            writer.endObject();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to write the metrics to a string", e);
+        }
+        return output.toString();
+    }
+
+    private static String micros(final long nanos) {
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1000D);
+    }
+
+    // Power of two buckets of nanoseconds
+    private static final class Histogram {
+
+        private final long[] buckets = new long[Long.SIZE];
+        private long count = 0L;
+        private long sum = 0L;
+        private long max = 0L;
+
+        private void record(final long nanos) {
+            buckets[nanos <= 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos)]++;
+            count++;
+            sum += nanos;
+            max = Math.max(max, nanos);
+        }
+
+        // The upper bound of the bucket containing the percentile
+        private long percentile(final double percentile) {
+            final long target = (long) Math.ceil(count * percentile);
+            long seen = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target && seen > 0) {
+                    return i >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (i + 1));
+                }
+            }
+            return 0L;
+        }
+
+        private void reset() {
+            Arrays.fill(buckets, 0L);
+            count = 0L;
+            sum = 0L;
+            max = 0L;
+        }
+    }
+}
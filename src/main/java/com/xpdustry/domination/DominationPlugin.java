@@ -18,18 +18,22 @@
  */
 package com.xpdustry.domination;
 
+import arc.Core;
 import arc.util.CommandHandler;
 import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.xpdustry.distributor.api.Distributor;
 import com.xpdustry.distributor.api.command.CommandSender;
 import com.xpdustry.distributor.api.command.cloud.MindustryCommandManager;
 import com.xpdustry.distributor.api.plugin.AbstractMindustryPlugin;
-import com.xpdustry.domination.Zone.Adapter;
 import io.leangen.geantyref.TypeToken;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import mindustry.Vars;
 import mindustry.game.EventType;
 import net.mindustry_ddns.filestore.FileStore;
@@ -44,57 +48,105 @@ public final class DominationPlugin extends AbstractMindustryPlugin {
 
     private static final String DOMINATION_ENABLED_KEY = "xpdustry-domination:enabled";
 
-    // TODO Make the DominationState object itself loadable to allow more options like game duration and stuff...
-    private final FileStore<List<Zone>> loader = FileStore.of(
-            getDirectory().resolve("maps").resolve("unknown.json").toFile(),
-            Serializers.gson(new GsonBuilder()
-                    .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_DASHES)
-                    .registerTypeAdapter(Zone.class, new Adapter())
-                    .registerTypeAdapter(Duration.class, new DurationAdapter())
-                    .setPrettyPrinting()
-                    .create()),
+    private static final Gson GSON = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_DASHES)
+            .registerTypeAdapter(Duration.class, new DurationAdapter())
+            .setPrettyPrinting()
+            .create();
+
+    private final FileStore<DominationConfig> config = FileStore.of(
+            getDirectory().resolve("config.json").toFile(),
+            Serializers.gson(GSON),
             new TypeToken<>() {},
-            new ArrayList<>());
+            new DominationConfig());
+
+    private final ZoneWriter writer = new ZoneWriter(() -> getConfig().getZoneFormat());
+    private final ZoneCache zones =
+            new ZoneCache(getDirectory().resolve("maps"), writer, () -> getConfig().getZoneFormat());
 
     private @MonotonicNonNull MindustryCommandManager<CommandSender> clientCommands;
     private @MonotonicNonNull MindustryCommandManager<CommandSender> serverCommands;
 
-    private @MonotonicNonNull DominationState state = null;
+    private final DominationMetrics metrics = new DominationMetrics(this);
+    private final LoadGovernor governor = new LoadGovernor(this);
+
+    // TODO Make the DominationState object itself loadable to allow more options like game duration and stuff...
+    private volatile @MonotonicNonNull DominationState state = null;
+
+    // The domination commands run on these threads in async mode, off the game thread
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ExecutorService commands = Executors.newFixedThreadPool(2, runnable -> {
+        final var thread = new Thread(runnable, "domination-commands-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DominationPlugin() {
+        // Mindustry registers the commands before it initializes the plugin, their coordinator needs the config
+        this.config.load();
+    }
 
     @Override
     public void onInit() {
+        this.zones.load();
+
         Distributor.get().getEventBus().subscribe(EventType.PlayEvent.class, this, event -> {
-            this.loader.setFile(getDirectory()
-                    .resolve("maps")
-                    .resolve(sanitizeFileName(Vars.state.map.name()) + ".json")
-                    .toFile());
-            this.loader.set(new ArrayList<>());
-            this.loader.load();
-            this.state = new DominationState(this.loader);
+            this.writer.flush();
+            final var map = Vars.state.map.name();
+            this.state = new DominationState(this.zones.get(map), edited -> {
+                this.zones.update(map, edited);
+                this.writer.schedule(this.zones.getFile(map), edited);
+            });
         });
 
+        this.addListener(this.governor);
         this.addListener(new DominationLogic(this));
         this.addListener(new DominationRenderer(this));
+        this.addListener(this.metrics);
+    }
+
+    @Override
+    public void onExit() {
+        this.zones.close();
+        this.writer.close();
+        this.commands.shutdownNow();
     }
 
     @Override
     public void onServerCommandsRegistration(final CommandHandler handler) {
-        serverCommands = new MindustryCommandManager<>(
-                this, handler, ExecutionCoordinator.simpleCoordinator(), SenderMapper.identity());
+        serverCommands = new MindustryCommandManager<>(this, handler, createCoordinator(), SenderMapper.identity());
         final var annotations = new AnnotationParser<>(serverCommands, CommandSender.class);
         annotations.parse(new StartCommand(this));
     }
 
     @Override
     public void onClientCommandsRegistration(final CommandHandler handler) {
-        clientCommands = new MindustryCommandManager<>(
-                this, handler, ExecutionCoordinator.simpleCoordinator(), SenderMapper.identity());
+        clientCommands = new MindustryCommandManager<>(this, handler, createCoordinator(), SenderMapper.identity());
         final var annotations =
                 new AnnotationParser<>(clientCommands, CommandSender.class, params -> CommandMeta.empty());
         annotations.parse(new StartCommand(this));
         annotations.parse(new ZoneCommands(this));
     }
 
+    // In async mode, the commands that touch the game hand their work to the main thread with Core.app.post
+    private ExecutionCoordinator<CommandSender> createCoordinator() {
+        return getConfig().isAsyncCommands()
+                ? ExecutionCoordinator.coordinatorFor(commands)
+                : ExecutionCoordinator.simpleCoordinator();
+    }
+
+    // Reads the live game state on the main thread, then hands it to the command in its execution mode
+    <T> void readGameState(final Supplier<T> reader, final Consumer<T> command) {
+        if (!getConfig().isAsyncCommands()) {
+            command.accept(reader.get());
+            return;
+        }
+        Core.app.post(() -> {
+            final var value = reader.get();
+            commands.execute(() -> command.accept(value));
+        });
+    }
+
     public boolean isEnabled() {
         return Vars.state.rules.tags.getBool(DOMINATION_ENABLED_KEY);
     }
@@ -103,6 +155,18 @@ public final class DominationPlugin extends AbstractMindustryPlugin {
         Vars.state.rules.tags.put(DOMINATION_ENABLED_KEY, Boolean.toString(enabled));
     }
 
+    public DominationConfig getConfig() {
+        return config.get();
+    }
+
+    public DominationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public LoadGovernor getGovernor() {
+        return governor;
+    }
+
     public DominationState getState() {
         return state;
     }
@@ -114,8 +178,4 @@ public final class DominationPlugin extends AbstractMindustryPlugin {
     public MindustryCommandManager<CommandSender> getClientCommandManager() {
         return clientCommands;
     }
-
-    private String sanitizeFileName(final String input) {
-        return input.replaceAll("[<>:\"/|?*]", "_");
-    }
 }
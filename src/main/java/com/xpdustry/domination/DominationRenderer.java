@@ -18,9 +18,7 @@
  */
 package com.xpdustry.domination;
 
-import arc.math.Mathf;
-import arc.math.geom.Geometry;
-import arc.struct.Seq;
+import arc.Core;
 import arc.util.CommandHandler;
 import arc.util.Interval;
 import arc.util.Strings;
@@ -29,21 +27,27 @@ import com.xpdustry.distributor.api.Distributor;
 import com.xpdustry.distributor.api.plugin.PluginListener;
 import java.util.*;
 import mindustry.Vars;
-import mindustry.content.Fx;
-import mindustry.entities.Effect;
 import mindustry.game.EventType;
 import mindustry.game.Team;
 import mindustry.gen.*;
 import mindustry.graphics.Layer;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.incendo.cloud.description.CommandDescription;
 
 public final class DominationRenderer implements PluginListener {
 
-    private static final Seq<Effect> EFFECTS = Seq.with(Fx.mine, Fx.mineBig, Fx.mineHuge);
+    private static final int RENDER_TIMER = 0;
+    private static final int HUD_TIMER = 1;
 
-    private final Interval interval = new Interval();
-    private final Map<Zone, WorldLabel> labels = new HashMap<>();
+    private final Interval interval = new Interval(2);
+    private final Map<Zone, ZoneLabel> labels = new HashMap<>();
+    private final StringBuilder hud = new StringBuilder(100);
+    private String hudText = "";
+    private int leaderboardRevision = -1;
+    private @Nullable DominationState labelled = null;
+    private int labelledRevision = -1;
     private final Set<Player> viewers = new HashSet<>();
+    private final ZoneCircleScheduler circles = new ZoneCircleScheduler();
     private final DominationPlugin domination;
 
     public DominationRenderer(final DominationPlugin domination) {
@@ -52,10 +56,17 @@ public final class DominationRenderer implements PluginListener {
 
     @Override
     public void onPluginInit() {
-        Distributor.get().getEventBus().subscribe(EventType.PlayEvent.class, domination, event -> labels.clear());
+        Distributor.get().getEventBus().subscribe(EventType.PlayEvent.class, domination, event -> {
+            labels.clear();
+            labelled = null;
+            hudText = "";
+        });
         Distributor.get()
                 .getEventBus()
-                .subscribe(EventType.PlayerLeave.class, domination, event -> viewers.remove(event.player));
+                .subscribe(EventType.PlayerLeave.class, domination, event -> {
+                    viewers.remove(event.player);
+                    circles.remove(event.player);
+                });
     }
 
     @Override
@@ -70,7 +81,7 @@ public final class DominationRenderer implements PluginListener {
                         .commandDescription(
                                 CommandDescription.commandDescription("Enable/Disable domination zone view mode."))
                         .permission("com.xpdustry.domination.map.zone.view")
-                        .handler(ctx -> {
+                        .handler(ctx -> Core.app.post(() -> {
                             final var player = ctx.sender().getPlayer();
                             if (!this.viewers.add(player)) {
                                 this.viewers.remove(player);
@@ -78,100 +89,175 @@ public final class DominationRenderer implements PluginListener {
                             ctx.sender()
                                     .reply(Strings.format(
                                             "You @ zone viewing.", viewers.contains(player) ? "enabled" : "disabled"));
-                        }));
+                        })));
     }
 
     @Override
     public void onPluginUpdate() {
-        if (interval.get(Time.toSeconds / 6) && Vars.state.isPlaying()) {
+        // Under load, the rendering is slowed down and simplified to leave the frame time to the capture logic
+        final var level = domination.getGovernor().getLevel();
+        if (interval.get(RENDER_TIMER, (Time.toSeconds / 6) * level.getRenderScale()) && Vars.state.isPlaying()) {
+            final var event = new DominationEvents.RenderPass();
+            event.begin();
+            final var metrics = domination.getMetrics();
+            final long start = System.nanoTime();
+            int packets = 0;
             if (domination.isEnabled()) {
                 // Graphics
-                Groups.player.forEach(this::drawZoneCircles);
-                labels.forEach((zone, label) -> {
-                    label.text(Strings.format("[#@]@%", zone.getTeam().color, zone.getCapture()));
-                });
-
-                // HUD text
-                final var builder = new StringBuilder(100)
-                        .append("Time remaining > ")
-                        .append(Strings.formatMillis(
-                                domination.getState().getRemainingTime().toMillis()));
-
-                // Leaderboard
-                domination.getState().getLeaderboard().entrySet().stream()
-                        .sorted(Comparator.comparingDouble(Map.Entry::getValue))
-                        .forEach(e -> {
-                            builder.append("\n[#")
-                                    .append(e.getKey().color)
-                                    .append(']')
-                                    .append(
-                                            e.getKey() == Team.derelict
-                                                    ? "Unclaimed"
-                                                    : Strings.capitalize(e.getKey().name))
-                                    .append("[] > ")
-                                    .append(e.getValue()
-                                            / domination.getState().getZones().size())
-                                    .append('%');
-                        });
-
-                Call.setHudText(builder.toString());
+                final int budget = domination.getConfig().getEffectBudget(Groups.player.size());
+                for (final var player : Groups.player) {
+                    final int sent =
+                            circles.draw(player, domination.getState().getTable(), budget, level.getVertexStep());
+                    metrics.count(DominationMetrics.Packet.EFFECT, sent);
+                    packets += sent;
+                }
 
                 // Update labels
-                final var zones = new HashSet<>(domination.getState().getZones());
-                final var entries = labels.entrySet().iterator();
-                while (entries.hasNext()) {
-                    final var entry = entries.next();
-                    final var zone = entry.getKey();
-                    final var label = entry.getValue();
-                    if (!zones.remove(zone)) {
-                        entries.remove();
-                        label.remove();
-                        Call.removeWorldLabel(label.id());
-                    } else if (zone.getX() != label.getX() || zone.getY() != label.getY()) {
-                        label.set(zone.getX(), zone.getY());
+                final var state = domination.getState();
+                if (labelled != state || labelledRevision != state.getRevision()) {
+                    syncLabels();
+                    labelled = state;
+                    labelledRevision = state.getRevision();
+                }
+                for (final var label : labels.values()) {
+                    if (label.update(state.getTable())) {
+                        metrics.countStrings(1);
                     }
                 }
-                for (final var zone : zones) {
-                    final var label = WorldLabel.create();
-                    label.text("???%");
-                    label.z(Layer.flyingUnit);
-                    label.flags((byte) (WorldLabel.flagOutline | WorldLabel.flagBackground));
-                    label.fontSize(2F);
-                    label.set(zone.getX(), zone.getY());
-                    label.add();
-                    labels.put(zone, label);
+
+                // HUD text, the countdown is refreshed at a slower rate than the leaderboard
+                final var leaderboard = state.getLeaderboard();
+                if (interval.get(HUD_TIMER, Time.toSeconds * level.getHudScale())
+                        || leaderboardRevision != leaderboard.getRevision()) {
+                    leaderboardRevision = leaderboard.getRevision();
+                    formatHud(hud, state);
+                    if (!hudText.contentEquals(hud)) {
+                        hudText = hud.toString();
+                        Call.setHudText(hudText);
+                        metrics.countStrings(1);
+                        metrics.count(DominationMetrics.Packet.HUD, Groups.player.size());
+                        packets += Groups.player.size();
+                    }
                 }
             } else {
+                final int budget = domination.getConfig().getEffectBudget(viewers.size());
                 for (final var viewer : viewers) {
-                    drawZoneCircles(viewer);
-                    for (final var zone : this.domination.getState().getZones()) {
+                    final int sent =
+                            circles.draw(viewer, domination.getState().getTable(), budget, level.getVertexStep());
+                    metrics.count(DominationMetrics.Packet.EFFECT, sent);
+                    packets += sent;
+                    final var zones = domination.getState().getTable();
+                    for (int i = 0; i < zones.size(); i++) {
+                        if (!Viewport.isVisible(viewer, zones, i)) {
+                            continue;
+                        }
                         Call.label(
                                 viewer.con(),
-                                "[#" + zone.getTeam().color + "]" + Iconc.star,
+                                "[#" + zones.getTeam(i).color + "]" + Iconc.star,
                                 1F / 6,
-                                zone.getX(),
-                                zone.getY());
+                                zones.getX(i),
+                                zones.getY(i));
+                        metrics.count(DominationMetrics.Packet.LABEL, 1);
+                        packets++;
+                        metrics.countStrings(1);
                     }
                 }
             }
+            metrics.record(DominationMetrics.Phase.RENDER, start);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.players = domination.isEnabled() ? Groups.player.size() : viewers.size();
+                event.packets = packets;
+                event.commit();
+            }
+        }
+    }
+
+    static void formatHud(final StringBuilder builder, final DominationState state) {
+        builder.setLength(0);
+        builder.append("Time remaining > ").append(Strings.formatMillis(state.getRemainingTime().toMillis()));
+
+        // Leaderboard
+        final var leaderboard = state.getLeaderboard();
+        for (int i = 0; i < leaderboard.size(); i++) {
+            final var team = leaderboard.getTeam(i);
+            builder.append("\n[#")
+                    .append(team.color)
+                    .append(']')
+                    .append(team == Team.derelict ? "Unclaimed" : Strings.capitalize(team.name))
+                    .append("[] > ")
+                    .append(leaderboard.getCapture(team) / leaderboard.getTotalZones())
+                    .append('%');
+        }
+    }
+
+    static String formatLabel(final ZoneTable zones, final int zone) {
+        return Strings.format("[#@]@%", zones.getTeam(zone).color, zones.getCapture(zone));
+    }
+
+    // Only called when the zones are edited, the labels follow the zones to their new index in the table
+    private void syncLabels() {
+        final var state = domination.getState();
+        final var zones = state.getZones();
+        final var table = state.getTable();
+        final var entries = labels.entrySet().iterator();
+        while (entries.hasNext()) {
+            final var entry = entries.next();
+            final var zone = entry.getKey();
+            final int index = table.indexOf(zone.getX(), zone.getY());
+            if (index == -1 || !zones.get(index).equals(zone)) {
+                final var label = entry.getValue().label;
+                entries.remove();
+                label.remove();
+                Call.removeWorldLabel(label.id());
+                domination.getMetrics().count(DominationMetrics.Packet.WORLD_LABEL_REMOVAL, 1);
+            } else {
+                entry.getValue().move(index);
+            }
+        }
+        for (int i = 0; i < zones.size(); i++) {
+            final var zone = zones.get(i);
+            if (labels.containsKey(zone)) {
+                continue;
+            }
+            final var label = WorldLabel.create();
+            label.text("???%");
+            label.z(Layer.flyingUnit);
+            label.flags((byte) (WorldLabel.flagOutline | WorldLabel.flagBackground));
+            label.fontSize(2F);
+            label.set(zone.getX(), zone.getY());
+            label.add();
+            labels.put(zone, new ZoneLabel(i, label));
         }
     }
 
-    private void drawZoneCircles(final Player player) {
-        for (final var zone : this.domination.getState().getZones()) {
-            final var circle =
-                    Geometry.regPoly((int) (Mathf.pi * (zone.getRadius() / Vars.tilesize)), zone.getRadius());
-            Geometry.iteratePolygon(
-                    (px, py) -> {
-                        Call.effect(
-                                player.con(),
-                                EFFECTS.random(),
-                                px + zone.getX(),
-                                py + zone.getY(),
-                                0,
-                                zone.getTeam().color);
-                    },
-                    circle);
+    private static final class ZoneLabel {
+
+        private final WorldLabel label;
+        private int zone;
+        private int revision = -1;
+
+        private ZoneLabel(final int zone, final WorldLabel label) {
+            this.zone = zone;
+            this.label = label;
+        }
+
+        private void move(final int zone) {
+            if (this.zone != zone) {
+                this.zone = zone;
+                this.revision = -1;
+            }
+        }
+
+        // Returns true if the text of the label changed
+        private boolean update(final ZoneTable zones) {
+            if (revision == zones.getRevision(zone)) {
+                return false;
+            }
+            revision = zones.getRevision(zone);
+            label.text(formatLabel(zones, zone));
+            return true;
         }
     }
 }
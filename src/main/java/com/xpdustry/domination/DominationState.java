@@ -21,26 +21,39 @@ package com.xpdustry.domination;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-import mindustry.game.Team;
-import net.mindustry_ddns.filestore.Store;
+import java.util.function.Consumer;
+import mindustry.Vars;
 
 public final class DominationState {
 
-    // TODO Separate zone data and zone state with a map
     private static final Duration ONE_HOUR = Duration.ofHours(1L);
-    private final Store<List<Zone>> zones;
+    // Immutable snapshot, replaced on each edit so other threads can read it without locking.
+    // The edits themselves and the zone table are confined to the main thread.
+    private volatile List<Zone> zones;
+    private final Consumer<List<Zone>> saver;
     private final Instant start = Instant.now(Clock.systemUTC());
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final ZoneTable table = new ZoneTable(leaderboard);
+    private int revision = 0;
 
-    public DominationState(final Store<List<Zone>> zones) {
-        this.zones = zones;
+    public DominationState(final List<Zone> zones, final Consumer<List<Zone>> saver) {
+        this.zones = List.copyOf(zones);
+        this.saver = saver;
+        this.table.rebuild(zones);
     }
 
-    public Collection<Zone> getZones() {
-        return zones.get();
+    public List<Zone> getZones() {
+        return zones;
+    }
+
+    public ZoneTable getTable() {
+        return table;
+    }
+
+    public int getRevision() {
+        return revision;
     }
 
     public Instant getStart() {
@@ -52,11 +65,56 @@ public final class DominationState {
         return start.plus(ONE_HOUR).isBefore(now) ? Duration.ZERO : ONE_HOUR.minus(Duration.between(start, now));
     }
 
-    public Map<Team, Integer> getLeaderboard() {
-        return getZones().stream().collect(Collectors.toUnmodifiableMap(Zone::getTeam, Zone::getCapture, Integer::sum));
+    // Returns false if a zone is already present at the position of the new zone
+    public boolean addZone(final Zone zone) {
+        if (table.indexOf(zone.getX(), zone.getY()) != -1) {
+            return false;
+        }
+        final var edited = new ArrayList<Zone>(zones.size() + 1);
+        edited.addAll(zones);
+        edited.add(zone);
+        publish(edited);
+        return true;
+    }
+
+    // Removes the zone centered on the position, or else the first zone covering its tile
+    public boolean removeZone(final int x, final int y) {
+        int index = table.indexOf(x, y);
+        if (index == -1) {
+            index = table.indexAt(Math.round(x / (float) Vars.tilesize), Math.round(y / (float) Vars.tilesize));
+        }
+        if (index == -1) {
+            return false;
+        }
+        final var edited = new ArrayList<>(zones);
+        edited.remove(index);
+        publish(edited);
+        return true;
+    }
+
+    public boolean resizeZone(final int x, final int y, final int radius) {
+        final int index = table.indexOf(x, y);
+        if (index == -1 || zones.get(index).getShape() != Zone.Shape.CIRCLE) {
+            return false;
+        }
+        final var edited = new ArrayList<>(zones);
+        edited.set(index, edited.get(index).withRadius(radius));
+        publish(edited);
+        return true;
+    }
+
+    private void publish(final List<Zone> edited) {
+        final var snapshot = List.copyOf(edited);
+        table.rebuild(snapshot);
+        zones = snapshot;
+        revision++;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
     }
 
     public void save() {
-        zones.save();
+        saver.accept(zones);
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntSeq;
+import mindustry.game.Team;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Capture totals per team, kept up to date by the zone table, sorted in ascending order
+public final class Leaderboard {
+
+    private final int[] captures = new int[Team.all.length];
+    private final int[] zones = new int[Team.all.length];
+    private final IntSeq teams = new IntSeq();
+    private int total = 0;
+    private int revision = 0;
+
+    public int size() {
+        return teams.size;
+    }
+
+    public Team getTeam(final int index) {
+        return Team.all[teams.get(index)];
+    }
+
+    public int getCapture(final Team team) {
+        return captures[team.id];
+    }
+
+    public int getZones(final Team team) {
+        return zones[team.id];
+    }
+
+    public int getTotalZones() {
+        return total;
+    }
+
+    // Incremented each time a capture or the number of zones changes
+    int getRevision() {
+        return revision;
+    }
+
+    // The team holding all the zones at 100%
+    public @Nullable Team getDominatingTeam() {
+        if (teams.size != 1) {
+            return null;
+        }
+        final int team = teams.get(0);
+        return team != Team.derelict.id && captures[team] == total * 100 ? Team.all[team] : null;
+    }
+
+    // The team with the highest capture, derelict if 2 teams share it
+    public Team getLeader() {
+        int max = 0;
+        var leader = Team.derelict;
+        for (int i = 0; i < teams.size; i++) {
+            final int team = teams.get(i);
+            if (team == Team.derelict.id) {
+                continue;
+            }
+            if (captures[team] > max) {
+                leader = Team.all[team];
+                max = captures[team];
+            } else if (captures[team] == max) {
+                leader = Team.derelict;
+            }
+        }
+        return leader;
+    }
+
+    void clear() {
+        revision++;
+        for (int i = 0; i < teams.size; i++) {
+            captures[teams.items[i]] = 0;
+            zones[teams.items[i]] = 0;
+        }
+        teams.clear();
+        total = 0;
+    }
+
+    void add(final int team, final int capture) {
+        revision++;
+        total++;
+        increment(team, capture);
+    }
+
+    void update(final int previousTeam, final int previousCapture, final int team, final int capture) {
+        revision++;
+        if (previousTeam == team) {
+            captures[team] += capture - previousCapture;
+            sort(team);
+        } else {
+            decrement(previousTeam, previousCapture);
+            increment(team, capture);
+        }
+    }
+
+    private void increment(final int team, final int capture) {
+        if (zones[team]++ == 0) {
+            teams.add(team);
+        }
+        captures[team] += capture;
+        sort(team);
+    }
+
+    private void decrement(final int team, final int capture) {
+        captures[team] -= capture;
+        if (--zones[team] == 0) {
+            teams.removeValue(team);
+        } else {
+            sort(team);
+        }
+    }
+
+    // Only one team changes at a time, so moving it to its place is enough
+    private void sort(final int team) {
+        int i = teams.indexOf(team);
+        while (i > 0 && captures[teams.items[i - 1]] > captures[team]) {
+            teams.items[i] = teams.items[i - 1];
+            teams.items[--i] = team;
+        }
+        while (i < teams.size - 1 && captures[teams.items[i + 1]] < captures[team]) {
+            teams.items[i] = teams.items[i + 1];
+            teams.items[++i] = team;
+        }
+    }
+}
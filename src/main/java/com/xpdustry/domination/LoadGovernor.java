@@ -0,0 +1,157 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.Core;
+import arc.math.Mathf;
+import arc.util.CommandHandler;
+import arc.util.Strings;
+import arc.util.Time;
+import com.xpdustry.distributor.api.command.CommandSender;
+import com.xpdustry.distributor.api.command.cloud.MindustryCommandManager;
+import com.xpdustry.distributor.api.plugin.PluginListener;
+import java.util.Locale;
+import org.incendo.cloud.description.CommandDescription;
+
+// Lowers the rate and the detail of the rendering when the server falls behind, the capture logic is never throttled
+public final class LoadGovernor implements PluginListener {
+
+    public enum Level {
+        // The smoothed delta above which the next level is reached, and how much the rendering is slowed down
+        NORMAL(1.2F, 1, 1, 1),
+        ELEVATED(1.5F, 2, 1, 2),
+        HIGH(2F, 3, 2, 3),
+        CRITICAL(Float.POSITIVE_INFINITY, 4, 3, 6);
+
+        private final float threshold;
+        private final int renderScale;
+        private final int vertexStep;
+        private final int hudScale;
+
+        Level(final float threshold, final int renderScale, final int vertexStep, final int hudScale) {
+            this.threshold = threshold;
+            this.renderScale = renderScale;
+            this.vertexStep = vertexStep;
+            this.hudScale = hudScale;
+        }
+
+        // The multiplier of the render interval
+        public int getRenderScale() {
+            return renderScale;
+        }
+
+        // Only one circle vertex out of this number is drawn
+        public int getVertexStep() {
+            return vertexStep;
+        }
+
+        // The multiplier of the HUD refresh interval
+        public int getHudScale() {
+            return hudScale;
+        }
+    }
+
+    // The load has to stay below the previous level for that long before stepping down, to avoid flapping
+    private static final float RECOVERY = 5F * 60F;
+    // The load must drop this far below the threshold of the previous level to count as recovered
+    private static final float HYSTERESIS = 0.9F;
+    private static final float SMOOTHING = 0.05F;
+
+    private final DominationPlugin domination;
+    private Level level = Level.NORMAL;
+    private float load = 1F;
+    private float recovered = 0F;
+
+    public LoadGovernor(final DominationPlugin domination) {
+        this.domination = domination;
+    }
+
+    @Override
+    public void onPluginClientCommandsRegistration(final CommandHandler handler) {
+        registerLoadCommand(domination.getClientCommandManager());
+    }
+
+    @Override
+    public void onPluginServerCommandsRegistration(final CommandHandler handler) {
+        registerLoadCommand(domination.getServerCommandManager());
+    }
+
+    private void registerLoadCommand(final MindustryCommandManager<CommandSender> manager) {
+        manager.command(manager.commandBuilder("domination")
+                .literal("load")
+                .commandDescription(CommandDescription.commandDescription("Display the domination load governor."))
+                .permission("com.xpdustry.domination.load")
+                .handler(ctx -> Core.app.post(() -> ctx.sender().reply(format()))));
+    }
+
+    @Override
+    public void onPluginUpdate() {
+        if (!domination.getConfig().isLoadGovernor()) {
+            level = Level.NORMAL;
+            return;
+        }
+
+        load = Mathf.lerp(load, Time.delta, SMOOTHING);
+
+        // Step up right away, the rendering is what makes the server fall further behind
+        while (level != Level.CRITICAL && load > level.threshold) {
+            level = Level.values()[level.ordinal() + 1];
+            recovered = 0F;
+        }
+
+        // Step down one level at a time, once the load stayed low enough
+        if (level != Level.NORMAL && load < Level.values()[level.ordinal() - 1].threshold * HYSTERESIS) {
+            recovered += Time.delta;
+            if (recovered >= RECOVERY) {
+                level = Level.values()[level.ordinal() - 1];
+                recovered = 0F;
+            }
+        } else {
+            recovered = 0F;
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    // The smoothed Time.delta, 1 when the server keeps up with its target frame rate
+    public float getLoad() {
+        return load;
+    }
+
+    public String format() {
+        return new StringBuilder(128)
+                .append("[orange]Domination load governor[]")
+                .append("\n- level: ")
+                .append(level.name().toLowerCase(Locale.ROOT))
+                .append("\n- load: ")
+                .append(Strings.fixed(load, 2))
+                .append(" (")
+                .append(Strings.fixed(Time.toSeconds / load, 1))
+                .append(" TPS)")
+                .append("\n- render interval: x")
+                .append(level.renderScale)
+                .append("\n- circle vertices: 1/")
+                .append(level.vertexStep)
+                .append("\n- hud refresh interval: x")
+                .append(level.hudScale)
+                .toString();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import mindustry.game.Team;
+import mindustry.gen.Groups;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Counts the units of each team in each zone on a fork-join pool,
+// from a snapshot of the units taken on the main thread.
+// The counts are applied to the occupancy by the main thread once ready, so they lag behind by a frame or two.
+final class ParallelOccupancy {
+
+    // The number of units counted by a single task
+    private static final int CHUNK = 1024;
+
+    private final ForkJoinPool pool = new ForkJoinPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            owner -> {
+                final var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(owner);
+                thread.setName("domination-occupancy-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            },
+            null,
+            false);
+    // Maps the team ids to the compact ids of the teams present in the snapshot
+    private final int[] compact = new int[Team.all.length];
+    private int[] tiles = new int[0];
+    private int[] teams = new int[0];
+    private @Nullable ForkJoinTask<int[]> pending = null;
+    private @Nullable ZoneIndex index = null;
+    private int[] ids = new int[0];
+
+    boolean isPending() {
+        return pending != null;
+    }
+
+    void submit(final ZoneOccupancy occupancy) {
+        final var index = occupancy.getIndex();
+        final int zones = occupancy.getZones();
+        final int size = Groups.unit.size();
+        if (tiles.length < size) {
+            tiles = new int[size];
+            teams = new int[size];
+        }
+
+        Arrays.fill(compact, -1);
+        int present = 0;
+        final var ids = new int[Team.all.length];
+        for (int i = 0; i < size; i++) {
+            final var unit = Groups.unit.index(i);
+            // Units spawned by the cores don't count
+            tiles[i] = unit.spawnedByCore() ? -1 : index.tile(unit.tileX(), unit.tileY());
+            final int team = unit.team().id;
+            if (compact[team] == -1) {
+                compact[team] = present;
+                ids[present++] = team;
+            }
+            teams[i] = compact[team];
+        }
+
+        this.index = index;
+        this.ids = Arrays.copyOf(ids, present);
+        this.pending = pool.submit(new CountTask(index, tiles, teams, zones, present, 0, size));
+    }
+
+    // Applies the counts if they are ready, returns true if they were.
+    // The counts are dropped if the zones were rebuilt in the meantime.
+    boolean apply(final ZoneOccupancy occupancy) {
+        final var task = pending;
+        if (task == null || !task.isDone()) {
+            return false;
+        }
+        pending = null;
+        if (index != occupancy.getIndex() || task.isCompletedAbnormally()) {
+            return false;
+        }
+        occupancy.load(task.join(), ids);
+        return true;
+    }
+
+    void cancel() {
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    void close() {
+        cancel();
+        pool.shutdownNow();
+    }
+
+    private static final class CountTask extends RecursiveTask<int[]> {
+
+        private final ZoneIndex index;
+        private final int[] tiles;
+        private final int[] teams;
+        private final int zones;
+        private final int width;
+        private final int from;
+        private final int to;
+
+        private CountTask(
+                final ZoneIndex index,
+                final int[] tiles,
+                final int[] teams,
+                final int zones,
+                final int width,
+                final int from,
+                final int to) {
+            this.index = index;
+            this.tiles = tiles;
+            this.teams = teams;
+            this.zones = zones;
+            this.width = width;
+            this.from = from;
+            this.to = to;
+        }
+
+        // Returns the number of units of each compact team id in each zone, at zone * width + team
+        @Override
+        protected int[] compute() {
+            if (to - from > CHUNK) {
+                final int middle = (from + to) >>> 1;
+                final var left = new CountTask(index, tiles, teams, zones, width, from, middle);
+                left.fork();
+                final var counts = new CountTask(index, tiles, teams, zones, width, middle, to).compute();
+                final var other = left.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += other[i];
+                }
+                return counts;
+            }
+
+            final var counts = new int[zones * width];
+            for (int i = from; i < to; i++) {
+                final int tile = tiles[i];
+                if (tile == -1) {
+                    continue;
+                }
+                for (int entry = index.start(tile); entry < index.end(tile); entry++) {
+                    counts[(index.zone(entry) * width) + teams[i]]++;
+                }
+            }
+            return counts;
+        }
+    }
+}
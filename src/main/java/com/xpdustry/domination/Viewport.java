@@ -0,0 +1,41 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import mindustry.Vars;
+import mindustry.gen.Player;
+
+// Culling of the zones against the camera of the players, as reported by their client snapshots
+final class Viewport {
+
+    private static final float MARGIN = 4 * Vars.tilesize;
+
+    private Viewport() {}
+
+    static boolean isVisible(final Player player, final ZoneTable zones, final int zone) {
+        final var con = player.con();
+        // The client did not send its camera yet
+        if (con == null || con.viewWidth <= 0 || con.viewHeight <= 0) {
+            return true;
+        }
+        final float extent = zones.getRadius(zone) + MARGIN;
+        return Math.abs(zones.getX(zone) - con.viewX) <= (con.viewWidth / 2F) + extent
+                && Math.abs(zones.getY(zone) - con.viewY) <= (con.viewHeight / 2F) + extent;
+    }
+}
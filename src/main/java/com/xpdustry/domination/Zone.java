@@ -18,94 +18,321 @@
  */
 package com.xpdustry.domination;
 
+import arc.math.Mathf;
+import arc.math.geom.Geometry;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
-import java.util.Objects;
+import java.util.Arrays;
+import java.util.Locale;
 import mindustry.Vars;
-import mindustry.game.Team;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 // TODO add name to zone
+// The persisted definition of a zone, immutable so the zone lists can be shared between threads.
+// Its state during a game is held by the ZoneTable
 public final class Zone {
 
-    private int x;
-    private int y;
-    private int radius;
+    public enum Shape {
+        CIRCLE,
+        RECTANGLE,
+        POLYGON
+    }
 
-    private transient Team team = Team.derelict;
-    private transient int capture = 100;
+    // The spacing of the outline effects of the rectangles and polygons, close to the one of the circles
+    private static final float OUTLINE_SPACING = 2F * Vars.tilesize;
 
-    public Zone(final int x, final int y, final int radius) {
+    private final Shape shape;
+    // The center of the zone, in world units
+    private final int x;
+    private final int y;
+    // In tiles, the radius of a circle, or the size of a rectangle
+    private final int radius;
+    private final int width;
+    private final int height;
+    // The vertices of a polygon, in world units
+    private final int[] points;
+    // Computed once, the zone being immutable
+    private @Nullable ZoneMask mask = null;
+    private float @Nullable [] outline = null;
+
+    private Zone(
+            final Shape shape,
+            final int x,
+            final int y,
+            final int radius,
+            final int width,
+            final int height,
+            final int[] points) {
+        this.shape = shape;
         this.x = x;
         this.y = y;
         this.radius = radius;
+        this.width = width;
+        this.height = height;
+        this.points = points;
+    }
+
+    public Zone(final int x, final int y, final int radius) {
+        this(Shape.CIRCLE, x, y, radius, 0, 0, new int[0]);
     }
 
     public Zone(final int x, final int y) {
         this(x, y, 5 * Vars.tilesize);
     }
 
-    public int getX() {
-        return x;
+    // The center is in world units, the size in tiles
+    public static Zone rectangle(final int x, final int y, final int width, final int height) {
+        return new Zone(Shape.RECTANGLE, x, y, 0, width, height, new int[0]);
     }
 
-    public void setX(final int x) {
-        this.x = x;
+    // The vertices are in world units, as x and y pairs.
+    // The center of the zone is the tile inside the polygon the closest to the average of its vertices.
+    public static Zone polygon(final int[] points) {
+        if (points.length < 6 || points.length % 2 != 0) {
+            throw new IllegalArgumentException("A polygon needs at least 3 vertices, as x and y pairs.");
+        }
+        long sumX = 0;
+        long sumY = 0;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < points.length; i += 2) {
+            sumX += points[i];
+            sumY += points[i + 1];
+            minX = Math.min(minX, points[i]);
+            minY = Math.min(minY, points[i + 1]);
+            maxX = Math.max(maxX, points[i]);
+            maxY = Math.max(maxY, points[i + 1]);
+        }
+        final int vertices = points.length / 2;
+        final float averageX = sumX / (float) vertices;
+        final float averageY = sumY / (float) vertices;
+
+        // Falls back to the tile of the average for the degenerate polygons covering no tile
+        int centerX = Math.round(averageX / Vars.tilesize);
+        int centerY = Math.round(averageY / Vars.tilesize);
+        float closest = Float.MAX_VALUE;
+        for (int ty = (int) Math.ceil(minY / (float) Vars.tilesize); ty * Vars.tilesize <= maxY; ty++) {
+            for (int tx = (int) Math.ceil(minX / (float) Vars.tilesize); tx * Vars.tilesize <= maxX; tx++) {
+                final float distance = Mathf.dst2(tx * Vars.tilesize, ty * Vars.tilesize, averageX, averageY);
+                if (distance < closest && isInPolygon(points, tx * Vars.tilesize, ty * Vars.tilesize)) {
+                    closest = distance;
+                    centerX = tx;
+                    centerY = ty;
+                }
+            }
+        }
+        return new Zone(Shape.POLYGON, centerX * Vars.tilesize, centerY * Vars.tilesize, 0, 0, 0, points.clone());
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public int getX() {
+        return x;
     }
 
     public int getY() {
         return y;
     }
 
-    public void setY(final int y) {
-        this.y = y;
+    // The radius of the circle, or of the smallest circle around the center containing the other shapes
+    public float getRadius() {
+        return switch (shape) {
+            case CIRCLE -> radius * Vars.tilesize;
+            // Even sizes are off center by half a tile
+            case RECTANGLE -> Mathf.len(width + 1, height + 1) * Vars.tilesize / 2F;
+            case POLYGON -> {
+                float max = 0F;
+                for (int i = 0; i < points.length; i += 2) {
+                    max = Math.max(max, Mathf.dst(x, y, points[i], points[i + 1]));
+                }
+                yield max;
+            }
+        };
     }
 
-    public float getRadius() {
-        return radius * Vars.tilesize;
+    public Zone withRadius(final int radius) {
+        if (shape != Shape.CIRCLE) {
+            throw new IllegalStateException("Only circle zones have a radius.");
+        }
+        return new Zone(x, y, radius);
     }
 
-    public void setRadius(final int radius) {
-        this.radius = radius;
+    int getTileRadius() {
+        return radius;
+    }
+
+    int getTileWidth() {
+        return width;
+    }
+
+    int getTileHeight() {
+        return height;
+    }
+
+    int[] getPoints() {
+        return points.clone();
     }
 
-    public Team getTeam() {
-        return team;
+    // The tiles whose center is within the zone
+    ZoneMask getMask() {
+        if (mask == null) {
+            mask = createMask();
+        }
+        return mask;
     }
 
-    public void setTeam(final Team team) {
-        this.team = team;
+    // The positions of the outline effects, relative to the center of the zone
+    float[] getOutline() {
+        if (outline == null) {
+            outline = createOutline();
+        }
+        return outline;
     }
 
-    public int getCapture() {
-        return capture;
+    private ZoneMask createMask() {
+        final float extent = getRadius();
+        final int minX = (int) Math.floor((x - extent) / Vars.tilesize);
+        final int minY = (int) Math.floor((y - extent) / Vars.tilesize);
+        final int maxX = (int) Math.ceil((x + extent) / Vars.tilesize);
+        final int maxY = (int) Math.ceil((y + extent) / Vars.tilesize);
+        return switch (shape) {
+            case CIRCLE -> ZoneMask.build(minX, minY, maxX, maxY, (tx, ty) -> {
+                final float dx = (tx * Vars.tilesize) - x;
+                final float dy = (ty * Vars.tilesize) - y;
+                return (dx * dx) + (dy * dy) <= extent * extent;
+            });
+            case RECTANGLE -> {
+                final int left = getFirstTile(x, width);
+                final int bottom = getFirstTile(y, height);
+                yield ZoneMask.build(left, bottom, left + width - 1, bottom + height - 1, (tx, ty) -> true);
+            }
+            case POLYGON -> ZoneMask.build(
+                    minX, minY, maxX, maxY, (tx, ty) -> isInPolygon(points, tx * Vars.tilesize, ty * Vars.tilesize));
+        };
     }
 
-    public void setCapture(final int capture) {
-        this.capture = capture;
+    // The first tile covered by a rectangle along an axis, so exactly its size in tiles is covered.
+    // When the size is even, the extra tile is on the side of the lower coordinates.
+    private static int getFirstTile(final int center, final int size) {
+        return (int) Math.ceil((center / (float) Vars.tilesize) - (size / 2F));
+    }
+
+    // Even-odd rule, a ray is cast along the x axis and the crossed edges are counted
+    private static boolean isInPolygon(final int[] points, final float px, final float py) {
+        boolean inside = false;
+        for (int i = 0, j = points.length - 2; i < points.length; j = i, i += 2) {
+            final int ix = points[i];
+            final int iy = points[i + 1];
+            final int jx = points[j];
+            final int jy = points[j + 1];
+            if ((iy > py) != (jy > py) && px < ix + ((py - iy) * (jx - ix) / (float) (jy - iy))) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private float[] createOutline() {
+        if (shape == Shape.CIRCLE) {
+            return Geometry.regPoly((int) (Mathf.pi * radius), getRadius());
+        }
+        final float[] corners;
+        if (shape == Shape.RECTANGLE) {
+            // Along the edges of the covered tiles
+            final float left = (getFirstTile(x, width) * Vars.tilesize) - (Vars.tilesize / 2F) - x;
+            final float bottom = (getFirstTile(y, height) * Vars.tilesize) - (Vars.tilesize / 2F) - y;
+            final float right = left + (width * Vars.tilesize);
+            final float top = bottom + (height * Vars.tilesize);
+            corners = new float[] {left, bottom, right, bottom, right, top, left, top};
+        } else {
+            corners = new float[points.length];
+            for (int i = 0; i < points.length; i += 2) {
+                corners[i] = points[i] - x;
+                corners[i + 1] = points[i + 1] - y;
+            }
+        }
+
+        // Spread the effects evenly along each edge, starting from its first vertex
+        int count = 0;
+        final var counts = new int[corners.length / 2];
+        for (int i = 0; i < corners.length; i += 2) {
+            final int j = (i + 2) % corners.length;
+            counts[i / 2] = Math.max(
+                    1, (int) (Mathf.dst(corners[i], corners[i + 1], corners[j], corners[j + 1]) / OUTLINE_SPACING));
+            count += counts[i / 2];
+        }
+        final var result = new float[count * 2];
+        int cursor = 0;
+        for (int i = 0; i < corners.length; i += 2) {
+            final int j = (i + 2) % corners.length;
+            for (int k = 0; k < counts[i / 2]; k++) {
+                final float progress = k / (float) counts[i / 2];
+                result[cursor++] = Mathf.lerp(corners[i], corners[j], progress);
+                result[cursor++] = Mathf.lerp(corners[i + 1], corners[j + 1], progress);
+            }
+        }
+        return result;
+    }
+
+    // Creates a rectangle or a polygon from the name of its shape and its values, as they are stored
+    static Zone create(final String shape, final int[] values, final String source) throws IOException {
+        if (shape.equals(Shape.RECTANGLE.name()) && values.length == 4) {
+            return Zone.rectangle(values[0], values[1], values[2], values[3]);
+        } else if (shape.equals(Shape.POLYGON.name()) && values.length >= 6 && values.length % 2 == 0) {
+            return Zone.polygon(values);
+        }
+        throw new IOException(source + " is not valid zone data.");
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return (31 * x) + y;
     }
 
     @Override
     public boolean equals(final Object o) {
-        return this == o || (o instanceof Zone zone && zone.x == x && zone.y == y && zone.radius == radius);
+        return this == o
+                || (o instanceof Zone zone
+                        && zone.shape == shape
+                        && zone.x == x
+                        && zone.y == y
+                        && zone.radius == radius
+                        && zone.width == width
+                        && zone.height == height
+                        && Arrays.equals(zone.points, points));
     }
 
+    // Circles are stored as "x, y, radius", the other shapes are prefixed by their name,
+    // "rectangle: x, y, width, height" and "polygon: x1, y1, x2, y2, ..."
     static final class Adapter extends TypeAdapter<Zone> {
 
         @Override
         public void write(final JsonWriter writer, final @Nullable Zone value) throws IOException {
             if (value == null) {
                 writer.nullValue();
-            } else {
-                writer.value(value.x + ", " + value.y + ", " + value.radius);
+                return;
+            }
+            switch (value.shape) {
+                case CIRCLE -> writer.value(value.x + ", " + value.y + ", " + value.radius);
+                case RECTANGLE -> writer.value(
+                        "rectangle: " + value.x + ", " + value.y + ", " + value.width + ", " + value.height);
+                case POLYGON -> {
+                    final var builder = new StringBuilder("polygon: ");
+                    for (int i = 0; i < value.points.length; i++) {
+                        if (i > 0) {
+                            builder.append(", ");
+                        }
+                        builder.append(value.points[i]);
+                    }
+                    writer.value(builder.toString());
+                }
             }
         }
 
@@ -117,6 +344,12 @@ public final class Zone {
             }
 
             final var text = reader.nextString();
+            final int separator = text.indexOf(':');
+            if (separator != -1) {
+                final var shape = text.substring(0, separator).trim().toUpperCase(Locale.ROOT);
+                return create(shape, parse(text.substring(separator + 1).split(",")), text);
+            }
+
             final var info = text.split(",", 3);
 
             if (info.length != 3) {
@@ -129,5 +362,13 @@ public final class Zone {
 
             return new Zone(Integer.parseInt(info[0]), Integer.parseInt(info[1]), Integer.parseInt(info[2]));
         }
+
+        private static int[] parse(final String[] info) {
+            final var values = new int[info.length];
+            for (int i = 0; i < info.length; i++) {
+                values[i] = Integer.parseInt(info[i].trim());
+            }
+            return values;
+        }
     }
 }
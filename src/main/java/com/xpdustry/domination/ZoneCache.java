@@ -0,0 +1,142 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.util.Log;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// The zones of every map, parsed at startup and reparsed in the background when their file changes
+final class ZoneCache {
+
+    private final Path directory;
+    private final ZoneWriter writer;
+    private final Supplier<ZoneFormat> format;
+    private final Map<String, List<Zone>> zones = new ConcurrentHashMap<>();
+    private final Map<String, Path> files = new ConcurrentHashMap<>();
+    private @Nullable WatchService watcher = null;
+
+    ZoneCache(final Path directory, final ZoneWriter writer, final Supplier<ZoneFormat> format) {
+        this.directory = directory;
+        this.writer = writer;
+        this.format = format;
+    }
+
+    void load() {
+        try {
+            Files.createDirectories(directory);
+            try (final var stream = Files.newDirectoryStream(directory, "*.json")) {
+                for (final var file : stream) {
+                    reload(file);
+                }
+            }
+        } catch (final IOException e) {
+            Log.err("Failed to load the domination zones", e);
+        }
+
+        try {
+            final var service = directory.getFileSystem().newWatchService();
+            directory.register(
+                    service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            final var thread = new Thread(() -> watch(service), "domination-zone-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            watcher = service;
+        } catch (final IOException e) {
+            Log.err("Failed to watch the domination zones, out-of-band edits will be ignored", e);
+        }
+    }
+
+    void close() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (final IOException e) {
+                Log.err("Failed to close the domination zone watcher", e);
+            }
+        }
+    }
+
+    Path getFile(final String map) {
+        return files.computeIfAbsent(map, name -> directory.resolve(name.replaceAll("[<>:\"/|?*]", "_") + ".json"));
+    }
+
+    // The cached list is immutable and shared, the state of the current game lives in the zone table
+    List<Zone> get(final String map) {
+        final var cached = zones.get(getFile(map).getFileName().toString());
+        return cached == null ? List.of() : cached;
+    }
+
+    void update(final String map, final List<Zone> updated) {
+        zones.put(getFile(map).getFileName().toString(), List.copyOf(updated));
+    }
+
+    private void watch(final WatchService service) {
+        try {
+            while (true) {
+                final var key = service.take();
+                for (final var event : key.pollEvents()) {
+                    if (!(event.context() instanceof Path path) || !path.toString().endsWith(".json")) {
+                        continue;
+                    }
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        zones.remove(path.toString());
+                    } else if (!writer.isOwnWrite(directory.resolve(path))) {
+                        // The files written by the plugin hold zones already in the cache, or older ones
+                        reload(directory.resolve(path));
+                    }
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException ignored) {
+            // The plugin is shutting down
+        }
+    }
+
+    private void reload(final Path file) {
+        try (final var reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            final var parsed = new ArrayList<Zone>();
+            final var detected = ZoneFormat.read(reader, parsed);
+            zones.put(file.getFileName().toString(), List.copyOf(parsed));
+            // Only migrated once the operator opts into the compact format, the older versions can't read it
+            if (format.get() == ZoneFormat.COMPACT && detected != ZoneFormat.COMPACT && !parsed.isEmpty()) {
+                writer.schedule(file, parsed);
+            }
+        } catch (final IOException | IllegalStateException | NumberFormatException e) {
+            Log.err("Failed to load the domination zones from " + file, e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntIntMap;
+import arc.struct.Seq;
+import mindustry.content.Fx;
+import mindustry.entities.Effect;
+import mindustry.gen.Call;
+import mindustry.gen.Player;
+
+// Draws the zone outlines within a packet budget, resuming where the last render tick of each player stopped
+final class ZoneCircleScheduler {
+
+    private static final Seq<Effect> EFFECTS = Seq.with(Fx.mine, Fx.mineBig, Fx.mineHuge);
+
+    private final IntIntMap cursors = new IntIntMap();
+
+    // Returns the number of effects sent, only one vertex out of step is drawn
+    int draw(final Player player, final ZoneTable zones, final int budget, final int step) {
+        int total = 0;
+        for (int i = 0; i < zones.size(); i++) {
+            total += getVertices(player, zones, i, step);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        // Find the zone and vertex where the player stopped
+        int cursor = cursors.get(player.id(), 0) % total;
+        int index = 0;
+        while (cursor >= getVertices(player, zones, index, step)) {
+            cursor -= getVertices(player, zones, index, step);
+            index++;
+        }
+
+        int vertex = cursor;
+        final int sent = Math.min(budget, total);
+        int remaining = sent;
+        cursors.put(player.id(), (cursors.get(player.id(), 0) + sent) % total);
+
+        while (remaining > 0) {
+            final int vertices = getVertices(player, zones, index, step);
+            if (vertices > 0) {
+                final var outline = zones.getOutline(index);
+                final var color = zones.getTeam(index).color;
+                for (; vertex < vertices && remaining > 0; vertex++, remaining--) {
+                    Call.effect(
+                            player.con(),
+                            EFFECTS.random(),
+                            outline[vertex * step * 2] + zones.getX(index),
+                            outline[(vertex * step * 2) + 1] + zones.getY(index),
+                            0,
+                            color);
+                }
+            }
+            index = (index + 1) % zones.size();
+            vertex = 0;
+        }
+        return sent;
+    }
+
+    void remove(final Player player) {
+        cursors.remove(player.id(), 0);
+    }
+
+    // Zones out of the view of the player are skipped, and don't use the budget
+    private static int getVertices(final Player player, final ZoneTable zones, final int zone, final int step) {
+        if (!Viewport.isVisible(player, zones, zone)) {
+            return 0;
+        }
+        final int vertices = zones.getOutline(zone).length / 2;
+        return (vertices + step - 1) / step;
+    }
+}
@@ -18,8 +18,13 @@
  */
 package com.xpdustry.domination;
 
+import arc.Core;
+import arc.math.Mathf;
+import arc.math.geom.Vec2;
 import com.xpdustry.distributor.api.command.CommandSender;
 import mindustry.Vars;
+import mindustry.game.Team;
+import org.incendo.cloud.annotation.specifier.Greedy;
 import org.incendo.cloud.annotation.specifier.Range;
 import org.incendo.cloud.annotations.Argument;
 import org.incendo.cloud.annotations.Command;
@@ -40,39 +45,46 @@ public final class ZoneCommands {
     @CommandDescription("Get the data about the zones.")
     @ProxiedBy("zones")
     public void listZones(final CommandSender sender) {
+        domination.readGameState(() -> sender.getPlayer().team(), team -> listZones(sender, team));
+    }
+
+    // Built from the last published snapshot, so it can run off the game thread
+    private void listZones(final CommandSender sender, final Team team) {
         final var builder = new StringBuilder();
-        final var captured = domination.getState().getZones().stream()
-                .map(Zone::getTeam)
-                .filter(sender.getPlayer().team()::equals)
-                .count();
+        final var zones = domination.getState().getTable().getSnapshot();
+        int captured = 0;
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.getTeam(i) == team) {
+                captured++;
+            }
+        }
         builder.append("[orange]");
-        if (captured == domination.getState().getZones().size()) {
+        if (captured == zones.size()) {
             builder.append("Your team is about to capture all the zones :\n");
         } else {
             builder.append("Your team has [red]")
-                    .append(domination.getState().getZones().size() - captured)
+                    .append(zones.size() - captured)
                     .append("[] more zones to capture :\n");
         }
-        final var iterator = domination.getState().getZones().iterator();
-        while (iterator.hasNext()) {
-            final var zone = iterator.next();
+        for (int i = 0; i < zones.size(); i++) {
             builder.append("[white]- Zone at (")
-                    .append(zone.getX() / 8)
+                    .append(zones.getTileX(i))
                     .append(", ")
-                    .append(zone.getY() / 8)
+                    .append(zones.getTileY(i))
                     .append(") is captured by ")
                     .append("[#")
-                    .append(zone.getTeam().color)
+                    .append(zones.getTeam(i).color)
                     .append("]")
-                    .append(zone.getTeam().name)
+                    .append(zones.getTeam(i).name)
                     .append("[] at ")
-                    .append(zone.getCapture())
+                    .append(zones.getCapture(i))
                     .append("% percent.");
-            if (iterator.hasNext()) {
+            if (i + 1 < zones.size()) {
                 builder.append('\n');
             }
         }
-        sender.reply(builder.toString());
+        final var report = builder.toString();
+        Core.app.post(() -> sender.reply(report));
     }
 
     @Command("domination zone radius <x> <y> <radius>")
@@ -85,19 +97,14 @@ public final class ZoneCommands {
             final @Flag(value = "precise", aliases = "p") boolean precise) {
         final int tx = precise ? x : x * Vars.tilesize;
         final int ty = precise ? y : y * Vars.tilesize;
-        domination.getState().getZones().stream()
-                .filter(zone -> zone.getX() == tx && zone.getY() == ty)
-                .findFirst()
-                .ifPresentOrElse(
-                        zone -> {
-                            zone.setRadius(radius);
-                            domination.getState().save();
-                            sender.reply(
-                                    "The radius of the zone (%d, %d) has been set to %d".formatted(tx, ty, radius));
-                        },
-                        () -> {
-                            sender.reply("There is no zone at (%d, %d).".formatted(tx, ty));
-                        });
+        Core.app.post(() -> {
+            if (domination.getState().resizeZone(tx, ty, radius)) {
+                domination.getState().save();
+                sender.reply("The radius of the zone (%d, %d) has been set to %d".formatted(tx, ty, radius));
+            } else {
+                sender.reply("There is no circle zone at (%d, %d).".formatted(tx, ty));
+            }
+        });
     }
 
     @Command("domination zone add <x> <y>")
@@ -109,13 +116,66 @@ public final class ZoneCommands {
             final @Flag(value = "precise", aliases = "p") boolean precise) {
         final int tx = precise ? x : x * Vars.tilesize;
         final int ty = precise ? y : y * Vars.tilesize;
-        if (domination.getState().getZones().stream().anyMatch(zone -> zone.getX() == tx && zone.getY() == ty)) {
-            sender.reply("A zone is already present at this location.");
-        } else {
-            domination.getState().getZones().add(new Zone(tx, ty, 5));
-            domination.getState().save();
-            sender.reply("A zone has been added at (%d, %d).".formatted(tx, ty));
+        Core.app.post(() -> {
+            if (domination.getState().addZone(new Zone(tx, ty, 5))) {
+                domination.getState().save();
+                sender.reply("A zone has been added at (%d, %d).".formatted(tx, ty));
+            } else {
+                sender.reply("A zone is already present at this location.");
+            }
+        });
+    }
+
+    @Command("domination zone rectangle <x> <y> <width> <height>")
+    @CommandDescription("Add a rectangle zone, centered on the given position.")
+    @Permission("com.xpdustry.domination.zone.edit")
+    public void addRectangleZone(
+            final CommandSender sender,
+            final @Argument("x") @Range(min = "0") int x,
+            final @Argument("y") @Range(min = "0") int y,
+            final @Argument("width") @Range(min = "1") int width,
+            final @Argument("height") @Range(min = "1") int height,
+            final @Flag(value = "precise", aliases = "p") boolean precise) {
+        final int tx = precise ? x : x * Vars.tilesize;
+        final int ty = precise ? y : y * Vars.tilesize;
+        Core.app.post(() -> {
+            if (domination.getState().addZone(Zone.rectangle(tx, ty, width, height))) {
+                domination.getState().save();
+                sender.reply("A %dx%d rectangle zone has been added at (%d, %d).".formatted(width, height, tx, ty));
+            } else {
+                sender.reply("A zone is already present at this location.");
+            }
+        });
+    }
+
+    @Command("domination zone polygon <points>")
+    @CommandDescription("Add a polygon zone from the tile coordinates of its vertices, like \"10 10 20 10 15 20\".")
+    @Permission("com.xpdustry.domination.zone.edit")
+    public void addPolygonZone(final CommandSender sender, final @Argument("points") @Greedy String points) {
+        final var values = points.trim().split("[\\s,]+");
+        if (values.length < 6 || values.length % 2 != 0) {
+            Core.app.post(() -> sender.reply("A polygon needs at least 3 vertices, as x and y pairs."));
+            return;
+        }
+        final var coordinates = new int[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                coordinates[i] = Integer.parseInt(values[i]) * Vars.tilesize;
+            }
+        } catch (final NumberFormatException e) {
+            Core.app.post(() -> sender.reply("The vertices of the polygon must be integers."));
+            return;
         }
+        final var zone = Zone.polygon(coordinates);
+        Core.app.post(() -> {
+            if (domination.getState().addZone(zone)) {
+                domination.getState().save();
+                sender.reply("A polygon zone of %d vertices has been added at (%d, %d)."
+                        .formatted(values.length / 2, zone.getX() / Vars.tilesize, zone.getY() / Vars.tilesize));
+            } else {
+                sender.reply("A zone is already present at this location.");
+            }
+        });
     }
 
     @Command("domination zone remove <x> <y>")
@@ -127,11 +187,39 @@ public final class ZoneCommands {
             final @Flag(value = "precise", aliases = "p") boolean precise) {
         final int tx = precise ? x : x * Vars.tilesize;
         final int ty = precise ? y : y * Vars.tilesize;
-        if (domination.getState().getZones().removeIf(zone -> zone.getX() == tx && zone.getY() == ty)) {
-            domination.getState().save();
-            sender.reply("The zone at (%d, %d) has been removed.".formatted(tx, ty));
-        } else {
-            sender.reply("No zones are present at this location.");
+        Core.app.post(() -> {
+            if (domination.getState().removeZone(tx, ty)) {
+                domination.getState().save();
+                sender.reply("The zone at (%d, %d) has been removed.".formatted(tx, ty));
+            } else {
+                sender.reply("No zones are present at this location.");
+            }
+        });
+    }
+
+    @Command("domination zone nearest")
+    @CommandDescription("Get the zone closest to you.")
+    @Permission("com.xpdustry.domination.zone.edit")
+    public void nearestZone(final CommandSender sender) {
+        final var player = sender.getPlayer();
+        domination.readGameState(() -> new Vec2(player.x(), player.y()), position -> nearestZone(sender, position));
+    }
+
+    private void nearestZone(final CommandSender sender, final Vec2 position) {
+        final var zones = domination.getState().getTable().getSnapshot();
+        final float x = position.x;
+        final float y = position.y;
+        final int zone = zones.nearest(x, y);
+        if (zone == -1) {
+            Core.app.post(() -> sender.reply("There are no zones on this map."));
+            return;
         }
+        final var message = "The nearest zone is at (%d, %d), %d tiles away, with a radius of %d tiles."
+                .formatted(
+                        zones.getTileX(zone),
+                        zones.getTileY(zone),
+                        (int) (Mathf.dst(x, y, zones.getX(zone), zones.getY(zone)) / Vars.tilesize),
+                        (int) (zones.getRadius(zone) / Vars.tilesize));
+        Core.app.post(() -> sender.reply(message));
     }
 }
@@ -0,0 +1,120 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntSeq;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+// The layouts of the zone files, both are read and written in a streaming fashion
+public enum ZoneFormat {
+
+    // An array of "x, y, radius" strings
+    @SerializedName("legacy")
+    LEGACY {
+        @Override
+        void write(final JsonWriter writer, final List<Zone> zones) throws IOException {
+            writer.setIndent("  ");
+            writer.beginArray();
+            for (final var zone : zones) {
+                ADAPTER.write(writer, zone);
+            }
+            writer.endArray();
+        }
+    },
+
+    // A flat array of integers, x, y and radius of each circle zone,
+    // the other shapes are nested arrays of their name and values, like ["rectangle", x, y, width, height]
+    @SerializedName("compact")
+    COMPACT {
+        @Override
+        void write(final JsonWriter writer, final List<Zone> zones) throws IOException {
+            writer.beginArray();
+            for (final var zone : zones) {
+                switch (zone.getShape()) {
+                    case CIRCLE -> writer.value(zone.getX()).value(zone.getY()).value(zone.getTileRadius());
+                    case RECTANGLE -> writer.beginArray()
+                            .value("rectangle")
+                            .value(zone.getX())
+                            .value(zone.getY())
+                            .value(zone.getTileWidth())
+                            .value(zone.getTileHeight())
+                            .endArray();
+                    case POLYGON -> {
+                        writer.beginArray().value("polygon");
+                        for (final int value : zone.getPoints()) {
+                            writer.value(value);
+                        }
+                        writer.endArray();
+                    }
+                }
+            }
+            writer.endArray();
+        }
+    };
+
+    private static final Zone.Adapter ADAPTER = new Zone.Adapter();
+
+    abstract void write(final JsonWriter writer, final List<Zone> zones) throws IOException;
+
+    // Reads the zones in the output, and returns the detected format
+    static ZoneFormat read(final JsonReader reader, final List<Zone> output) throws IOException {
+        var format = COMPACT;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.NUMBER) {
+                output.add(new Zone(reader.nextInt(), nextInt(reader), nextInt(reader)));
+            } else if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                output.add(readShape(reader));
+            } else {
+                format = LEGACY;
+                final var zone = ADAPTER.read(reader);
+                if (zone != null) {
+                    output.add(zone);
+                }
+            }
+        }
+        reader.endArray();
+        return format;
+    }
+
+    private static Zone readShape(final JsonReader reader) throws IOException {
+        final var path = reader.getPath();
+        reader.beginArray();
+        final var shape = reader.nextString().toUpperCase(Locale.ROOT);
+        final var values = new IntSeq();
+        while (reader.hasNext()) {
+            values.add(reader.nextInt());
+        }
+        reader.endArray();
+        return Zone.create(shape, values.toArray(), "The zone at " + path);
+    }
+
+    private static int nextInt(final JsonReader reader) throws IOException {
+        if (!reader.hasNext()) {
+            throw new IOException("Incomplete zone data at " + reader.getPath() + " (x,y,radius).");
+        }
+        return reader.nextInt();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+// Maps each tile of the world to the zones covering it, overlapping zones included
+final class ZoneIndex {
+
+    static final ZoneIndex EMPTY = new ZoneIndex(0, 0, new int[1], new int[0]);
+
+    private final int width;
+    private final int height;
+    private final int[] offsets;
+    private final int[] entries;
+
+    private ZoneIndex(final int width, final int height, final int[] offsets, final int[] entries) {
+        this.width = width;
+        this.height = height;
+        this.offsets = offsets;
+        this.entries = entries;
+    }
+
+    static ZoneIndex build(final ZoneTable zones, final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            return EMPTY;
+        }
+
+        final var offsets = new int[(width * height) + 1];
+
+        // First pass, count the zones covering each tile
+        for (int i = 0; i < zones.size(); i++) {
+            forEachTile(zones, i, width, height, (tile, index) -> offsets[tile + 1]++);
+        }
+
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        // Second pass, fill the zone indexes of each tile
+        final var entries = new int[offsets[offsets.length - 1]];
+        final var cursors = new int[width * height];
+        for (int i = 0; i < zones.size(); i++) {
+            forEachTile(zones, i, width, height, (tile, index) -> entries[offsets[tile] + cursors[tile]++] = index);
+        }
+
+        return new ZoneIndex(width, height, offsets, entries);
+    }
+
+    private static void forEachTile(
+            final ZoneTable zones, final int index, final int width, final int height, final TileConsumer consumer) {
+        // A single bit lookup per tile, whatever the shape of the zone
+        final var mask = zones.getMask(index);
+        final int minX = Math.max(0, mask.getMinX());
+        final int minY = Math.max(0, mask.getMinY());
+        final int maxX = Math.min(width - 1, mask.getMaxX());
+        final int maxY = Math.min(height - 1, mask.getMaxY());
+        for (int ty = minY; ty <= maxY; ty++) {
+            for (int tx = minX; tx <= maxX; tx++) {
+                if (mask.contains(tx, ty)) {
+                    consumer.accept(tx + (ty * width), index);
+                }
+            }
+        }
+    }
+
+    int tile(final int x, final int y) {
+        return x < 0 || y < 0 || x >= width || y >= height ? -1 : x + (y * width);
+    }
+
+    int start(final int tile) {
+        return offsets[tile];
+    }
+
+    int end(final int tile) {
+        return offsets[tile + 1];
+    }
+
+    int zone(final int entry) {
+        return entries[entry];
+    }
+
+    @FunctionalInterface
+    private interface TileConsumer {
+        void accept(final int tile, final int index);
+    }
+}
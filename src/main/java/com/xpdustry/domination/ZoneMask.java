@@ -0,0 +1,81 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.Bits;
+
+// The tiles covered by a zone within its bounding box, whatever its shape
+final class ZoneMask {
+
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final Bits bits;
+
+    private ZoneMask(final int minX, final int minY, final int width, final int height, final Bits bits) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.bits = bits;
+    }
+
+    // The bounds are in tiles, inclusive
+    static ZoneMask build(final int minX, final int minY, final int maxX, final int maxY, final TileFilter filter) {
+        final int width = Math.max(0, maxX - minX + 1);
+        final int height = Math.max(0, maxY - minY + 1);
+        final var bits = new Bits(width * height);
+        for (int ty = 0; ty < height; ty++) {
+            for (int tx = 0; tx < width; tx++) {
+                if (filter.test(minX + tx, minY + ty)) {
+                    bits.set(tx + (ty * width));
+                }
+            }
+        }
+        return new ZoneMask(minX, minY, width, height, bits);
+    }
+
+    boolean contains(final int x, final int y) {
+        final int tx = x - minX;
+        final int ty = y - minY;
+        return tx >= 0 && ty >= 0 && tx < width && ty < height && bits.get(tx + (ty * width));
+    }
+
+    int getMinX() {
+        return minX;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxX() {
+        return minX + width - 1;
+    }
+
+    int getMaxY() {
+        return minY + height - 1;
+    }
+
+    @FunctionalInterface
+    interface TileFilter {
+        boolean test(final int x, final int y);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.struct.IntMap;
+import arc.struct.IntSeq;
+import java.util.Arrays;
+import mindustry.game.Team;
+import mindustry.gen.Groups;
+import mindustry.gen.Unit;
+
+// Keeps the units of each team in each zone up to date as they spawn, die, or move from tile to tile
+final class ZoneOccupancy {
+
+    private static final int TEAMS = Team.all.length;
+
+    private final IntMap<TrackedUnit> tracked = new IntMap<>();
+    private final IntSeq stale = new IntSeq();
+    private ZoneIndex index = ZoneIndex.EMPTY;
+    private int[] counts = new int[0];
+    private IntSeq[] teams = new IntSeq[0];
+    private int stamp = 0;
+
+    void rebuild(final ZoneTable zones, final int width, final int height) {
+        index = ZoneIndex.build(zones, width, height);
+        counts = new int[zones.size() * TEAMS];
+        teams = new IntSeq[zones.size()];
+        for (int i = 0; i < teams.length; i++) {
+            teams[i] = new IntSeq(4);
+        }
+        // The units are tracked again on the next update
+        tracked.clear();
+    }
+
+    void add(final Unit unit) {
+        if (!tracked.containsKey(unit.id())) {
+            track(unit);
+        }
+    }
+
+    void remove(final Unit unit) {
+        final var entry = tracked.remove(unit.id());
+        if (entry != null) {
+            apply(entry.tile, entry.team, -1);
+        }
+    }
+
+    void update() {
+        begin();
+        for (int i = 0; i < Groups.unit.size(); i++) {
+            track(Groups.unit.index(i));
+        }
+        end(Groups.unit.size());
+    }
+
+    void begin() {
+        stamp++;
+    }
+
+    // Only the units that moved to another tile or changed team update the counts,
+    // units outside the world (negative coordinates) are tracked but not counted
+    void track(final int id, final int x, final int y, final int team) {
+        var entry = tracked.get(id);
+        if (entry == null) {
+            entry = new TrackedUnit();
+            tracked.put(id, entry);
+        }
+        entry.stamp = stamp;
+        final int tile = index.tile(x, y);
+        if (entry.tile != tile || entry.team != team) {
+            apply(entry.tile, entry.team, -1);
+            apply(tile, team, 1);
+            entry.tile = tile;
+            entry.team = team;
+        }
+    }
+
+    void end(final int seen) {
+        // Some units were removed without being destroyed
+        if (tracked.size > seen) {
+            for (final var entry : tracked) {
+                if (entry.value.stamp != stamp) {
+                    stale.add(entry.key);
+                }
+            }
+            for (int i = 0; i < stale.size; i++) {
+                final var entry = tracked.remove(stale.items[i]);
+                if (entry != null) {
+                    apply(entry.tile, entry.team, -1);
+                }
+            }
+            stale.clear();
+        }
+    }
+
+    // Replaces the counts with the ones computed by the ParallelOccupancy, at zone * ids.length + compact team id.
+    // The tracking restarts from scratch, the units will be tracked again when they spawn or on the next update.
+    void load(final int[] computed, final int[] ids) {
+        clear();
+        for (int zone = 0; zone < teams.length; zone++) {
+            for (int i = 0; i < ids.length; i++) {
+                final int count = computed[(zone * ids.length) + i];
+                if (count > 0) {
+                    counts[(zone * TEAMS) + ids[i]] = count;
+                    teams[zone].add(ids[i]);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        for (final var present : teams) {
+            present.clear();
+        }
+        tracked.clear();
+    }
+
+    ZoneIndex getIndex() {
+        return index;
+    }
+
+    int getZones() {
+        return teams.length;
+    }
+
+    int getUnits(final int zone, final Team team) {
+        return counts[(zone * TEAMS) + team.id];
+    }
+
+    // The team with the most units, derelict if 2 teams have the same number of units
+    Team getLeader(final int zone) {
+        int max = 0;
+        int leader = Team.derelict.id;
+        final var present = teams[zone];
+        for (int i = 0; i < present.size; i++) {
+            final int team = present.items[i];
+            final int count = counts[(zone * TEAMS) + team];
+            if (count > max) {
+                max = count;
+                leader = team;
+            } else if (count == max) {
+                leader = Team.derelict.id;
+            }
+        }
+        return Team.all[leader];
+    }
+
+    private void track(final Unit unit) {
+        // Units spawned by the cores don't count
+        track(unit.id(), unit.spawnedByCore() ? -1 : unit.tileX(), unit.tileY(), unit.team().id);
+    }
+
+    private void apply(final int tile, final int team, final int delta) {
+        if (tile == -1) {
+            return;
+        }
+        for (int entry = index.start(tile); entry < index.end(tile); entry++) {
+            final int zone = index.zone(entry);
+            final int slot = (zone * TEAMS) + team;
+            counts[slot] += delta;
+            if (delta > 0 && counts[slot] == 1) {
+                teams[zone].add(team);
+            } else if (delta < 0 && counts[slot] == 0) {
+                teams[zone].removeValue(team);
+            }
+        }
+    }
+
+    private static final class TrackedUnit {
+        private int tile = -1;
+        private int team = 0;
+        private int stamp = 0;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import java.util.List;
+import mindustry.Vars;
+import mindustry.game.Team;
+
+// The zones of the current game in parallel arrays, the definitions come from the persisted zones
+public final class ZoneTable {
+
+    // The capture of a zone is kept in fixed point, with 16 bits for the fraction of a percent
+    static final int CAPTURE_SHIFT = 16;
+    static final int CAPTURE_MAX = 100 << CAPTURE_SHIFT;
+
+    private final Leaderboard leaderboard;
+    private int size = 0;
+    private int[] xs = new int[0];
+    private int[] ys = new int[0];
+    private float[] radii = new float[0];
+    private ZoneMask[] masks = new ZoneMask[0];
+    private float[][] outlines = new float[0][];
+    private int[] teams = new int[0];
+    private int[] captures = new int[0];
+    private int[] fractions = new int[0];
+    private int[] revisions = new int[0];
+    // Open addressing table of the packed zone positions, the slots hold the zone index plus one
+    private long[] keys = new long[1];
+    private int[] slots = new int[1];
+    private int modifications = 0;
+    private int published = -1;
+    private volatile Snapshot snapshot = new Snapshot(0, new int[0], new int[0], new float[0], new int[0], new int[0]);
+
+    ZoneTable(final Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    // The state of the zones that are still at the same position is kept
+    void rebuild(final List<Zone> zones) {
+        final int length = zones.size();
+        final var nxs = new int[length];
+        final var nys = new int[length];
+        final var nradii = new float[length];
+        final var nmasks = new ZoneMask[length];
+        final var noutlines = new float[length][];
+        final var nteams = new int[length];
+        final var ncaptures = new int[length];
+        final var nfractions = new int[length];
+        final var nrevisions = new int[length];
+
+        leaderboard.clear();
+        for (int i = 0; i < length; i++) {
+            final var zone = zones.get(i);
+            nxs[i] = zone.getX();
+            nys[i] = zone.getY();
+            nradii[i] = zone.getRadius();
+            nmasks[i] = zone.getMask();
+            noutlines[i] = zone.getOutline();
+            final int index = indexOf(zone.getX(), zone.getY());
+            if (index == -1) {
+                nteams[i] = Team.derelict.id;
+                ncaptures[i] = 100;
+            } else {
+                nteams[i] = teams[index];
+                ncaptures[i] = captures[index];
+                nfractions[i] = fractions[index];
+                nrevisions[i] = revisions[index];
+            }
+            leaderboard.add(nteams[i], ncaptures[i]);
+        }
+
+        size = length;
+        xs = nxs;
+        ys = nys;
+        radii = nradii;
+        masks = nmasks;
+        outlines = noutlines;
+        teams = nteams;
+        captures = ncaptures;
+        fractions = nfractions;
+        revisions = nrevisions;
+
+        // At most half full, so the probes stay short
+        final int capacity = Integer.highestOneBit(Math.max(1, length) * 2) << 1;
+        keys = new long[capacity];
+        slots = new int[capacity];
+        for (int i = 0; i < length; i++) {
+            final long key = pack(xs[i], ys[i]);
+            int slot = hash(key) & (capacity - 1);
+            while (slots[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = key;
+            slots[slot] = i + 1;
+        }
+
+        modifications++;
+        publish();
+    }
+
+    // Called on the main thread once the zones are up to date, for the readers on other threads
+    void publish() {
+        if (published == modifications) {
+            return;
+        }
+        published = modifications;
+        // The positions are never written once built, so only the live state is copied
+        snapshot = new Snapshot(size, xs, ys, radii, teams.clone(), captures.clone());
+    }
+
+    // The state of the zones as of the last capture tick, consistent and safe to read from any thread
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Returns the index of the zone at the given position, or -1 if there is none
+    public int indexOf(final int x, final int y) {
+        final long key = pack(x, y);
+        final int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the index of the first zone covering the given tile, or -1 if there is none
+    int indexAt(final int tileX, final int tileY) {
+        for (int i = 0; i < size; i++) {
+            if (masks[i].contains(tileX, tileY)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(final int zone) {
+        return xs[zone];
+    }
+
+    public int getY(final int zone) {
+        return ys[zone];
+    }
+
+    public int getTileX(final int zone) {
+        return xs[zone] / Vars.tilesize;
+    }
+
+    public int getTileY(final int zone) {
+        return ys[zone] / Vars.tilesize;
+    }
+
+    public float getRadius(final int zone) {
+        return radii[zone];
+    }
+
+    // The tiles covered by the zone
+    ZoneMask getMask(final int zone) {
+        return masks[zone];
+    }
+
+    // The positions of the outline effects of the zone, relative to its center
+    float[] getOutline(final int zone) {
+        return outlines[zone];
+    }
+
+    public Team getTeam(final int zone) {
+        return Team.all[teams[zone]];
+    }
+
+    public void setTeam(final int zone, final Team team) {
+        if (teams[zone] == team.id) {
+            return;
+        }
+        revisions[zone]++;
+        modifications++;
+        leaderboard.update(teams[zone], captures[zone], team.id, captures[zone]);
+        teams[zone] = team.id;
+    }
+
+    public int getCapture(final int zone) {
+        return captures[zone];
+    }
+
+    public void setCapture(final int zone, final int capture) {
+        fractions[zone] = 0;
+        if (captures[zone] == capture) {
+            return;
+        }
+        revisions[zone]++;
+        modifications++;
+        leaderboard.update(teams[zone], captures[zone], teams[zone], capture);
+        captures[zone] = capture;
+    }
+
+    // Moves the fixed point capture of the zone by the given amount, and returns it once clamped.
+    // The capture in percent, the revision and the leaderboard only change when a whole percent is crossed.
+    int advance(final int zone, final int amount) {
+        final int progress = Math.max(
+                0, Math.min(CAPTURE_MAX, (captures[zone] << CAPTURE_SHIFT) + fractions[zone] + amount));
+        final int capture = progress >> CAPTURE_SHIFT;
+        if (capture != captures[zone]) {
+            revisions[zone]++;
+            modifications++;
+            leaderboard.update(teams[zone], captures[zone], teams[zone], capture);
+            captures[zone] = capture;
+        }
+        fractions[zone] = progress & ((1 << CAPTURE_SHIFT) - 1);
+        return progress;
+    }
+
+    // Incremented each time the team or the capture of the zone changes
+    int getRevision(final int zone) {
+        return revisions[zone];
+    }
+
+    private static long pack(final int x, final int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int hash(final long key) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    public static final class Snapshot {
+
+        private final int size;
+        private final int[] xs;
+        private final int[] ys;
+        private final float[] radii;
+        private final int[] teams;
+        private final int[] captures;
+
+        private Snapshot(
+                final int size,
+                final int[] xs,
+                final int[] ys,
+                final float[] radii,
+                final int[] teams,
+                final int[] captures) {
+            this.size = size;
+            this.xs = xs;
+            this.ys = ys;
+            this.radii = radii;
+            this.teams = teams;
+            this.captures = captures;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int getX(final int zone) {
+            return xs[zone];
+        }
+
+        public int getY(final int zone) {
+            return ys[zone];
+        }
+
+        public int getTileX(final int zone) {
+            return xs[zone] / Vars.tilesize;
+        }
+
+        public int getTileY(final int zone) {
+            return ys[zone] / Vars.tilesize;
+        }
+
+        public float getRadius(final int zone) {
+            return radii[zone];
+        }
+
+        public Team getTeam(final int zone) {
+            return Team.all[teams[zone]];
+        }
+
+        public int getCapture(final int zone) {
+            return captures[zone];
+        }
+
+        // Returns the index of the zone with the closest center to the given position, or -1 if there are no zones
+        public int nearest(final float x, final float y) {
+            int nearest = -1;
+            float distance = Float.POSITIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                final float dx = xs[i] - x;
+                final float dy = ys[i] - y;
+                final float current = (dx * dx) + (dy * dy);
+                if (current < distance) {
+                    distance = current;
+                    nearest = i;
+                }
+            }
+            return nearest;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.util.Log;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+// Writes the zones in the background, back-to-back edits of the same file are coalesced in a single write
+final class ZoneWriter {
+
+    private static final long DELAY_MILLIS = 500L;
+
+    private final Supplier<ZoneFormat> format;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "domination-zone-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Path, List<Zone>> pending = new LinkedHashMap<>();
+    // The delayed drain of the pending zones, guarded by the pending lock
+    private @Nullable ScheduledFuture<?> scheduled = null;
+    // The modification time of the last write of each file, to tell the writes of the plugin from the other edits
+    private final Map<Path, FileTime> written = new ConcurrentHashMap<>();
+
+    ZoneWriter(final Supplier<ZoneFormat> format) {
+        this.format = format;
+    }
+
+    void schedule(final Path file, final List<Zone> zones) {
+        // The zones are immutable, a snapshot of the list is enough
+        final var snapshot = List.copyOf(zones);
+        synchronized (pending) {
+            pending.put(file.toAbsolutePath(), snapshot);
+            if (scheduled == null) {
+                scheduled = executor.schedule(this::drain, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    // Whether the file is about to be written, or still holds the last write, so the zones in memory are newer
+    boolean isOwnWrite(final Path file) {
+        final var key = file.toAbsolutePath();
+        synchronized (pending) {
+            if (pending.containsKey(key)) {
+                return true;
+            }
+        }
+        try {
+            return Files.getLastModifiedTime(key).equals(written.get(key));
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    void flush() {
+        // The pending zones are written right away, the delayed drain would find nothing left
+        synchronized (pending) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        try {
+            executor.submit(this::drain).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            Log.err("Failed to flush the domination zones", e.getCause());
+        }
+    }
+
+    void close() {
+        flush();
+        executor.shutdown();
+    }
+
+    private void drain() {
+        final List<Map.Entry<Path, List<Zone>>> entries;
+        synchronized (pending) {
+            entries = new ArrayList<>(pending.entrySet());
+            pending.clear();
+            scheduled = null;
+        }
+        for (final var entry : entries) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (final IOException e) {
+                Log.err("Failed to save the domination zones to " + entry.getKey(), e);
+            }
+        }
+    }
+
+    // Written to a temporary file first, so a crash can't leave a half-written file
+    private void write(final Path file, final List<Zone> zones) throws IOException {
+        final var event = new DominationEvents.ZoneSave();
+        event.begin();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        final var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (final var writer = new JsonWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+            format.get().write(writer, zones);
+        }
+        // Recorded before the move, which keeps the modification time, so the watcher can't see the file first
+        written.put(file, Files.getLastModifiedTime(temp));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.toString();
+            event.zones = zones.size();
+            event.commit();
+        }
+    }
+}
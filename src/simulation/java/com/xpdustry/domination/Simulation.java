@@ -0,0 +1,418 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import arc.ApplicationCore;
+import arc.ApplicationListener;
+import arc.Core;
+import arc.Events;
+import arc.backend.headless.HeadlessApplication;
+import arc.math.geom.Vec2;
+import arc.struct.StringMap;
+import arc.util.CommandHandler;
+import arc.util.Log;
+import arc.util.Time;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import mindustry.Vars;
+import mindustry.content.Blocks;
+import mindustry.content.UnitTypes;
+import mindustry.core.Logic;
+import mindustry.core.NetServer;
+import mindustry.core.Platform;
+import mindustry.entities.units.AIController;
+import mindustry.game.EventType;
+import mindustry.game.Rules;
+import mindustry.game.Team;
+import mindustry.maps.Map;
+import mindustry.mod.Mod;
+import mindustry.net.Net;
+import mindustry.world.Tile;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Headless load test of the domination plugin. A Mindustry server is booted with the plugin and its dependencies,
+ * then swarms of units of several teams rush the zones of a generated map, as fast as possible.
+ * The time spent in the plugins is recorded for each tick.
+ *
+ * <p>Usage: {@code ./gradlew runSimulation -Psimulation.args="--zones 100 --units 5000 --teams 4 --ticks 36000"}
+ */
+public final class Simulation extends ApplicationCore {
+
+    // The data directory of the server, the build puts the plugin and its dependencies in its mods directory
+    private static final String DIRECTORY_PROPERTY = "simulation.directory";
+    // The distance in tiles between the cores and the edges of the map
+    private static final int CORE_MARGIN = 5;
+
+    private final Path directory;
+    private final int zones;
+    private final int units;
+    private final int teams;
+    private final int ticks;
+    private final int interval;
+    private final int slice;
+    private final Path output;
+    private final int size;
+    private final Random random;
+    private final long[] plugins;
+    private final long[] frames;
+    private final int[] captures;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Team[] owners = new Team[0];
+    private ZoneTable.@Nullable Snapshot snapshot = null;
+    private @Nullable Team winner = null;
+    private int tick = 0;
+    private long frame = 0L;
+    private long start = 0L;
+    private boolean finished = false;
+    private boolean failed = false;
+
+    private Simulation(
+            final Path directory,
+            final int zones,
+            final int units,
+            final int teams,
+            final int ticks,
+            final int interval,
+            final int slice,
+            final long seed,
+            final Path output) {
+        this.directory = directory;
+        this.zones = zones;
+        this.units = units;
+        this.teams = teams;
+        this.ticks = ticks;
+        this.interval = interval;
+        this.slice = slice;
+        this.output = output;
+        this.size = Math.max(50, (int) Math.ceil(Math.sqrt(zones) * 20));
+        this.random = new Random(seed);
+        this.plugins = new long[ticks];
+        this.frames = new long[ticks];
+        this.captures = new int[ticks];
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        int zones = 30;
+        int units = 500;
+        int teams = 2;
+        int ticks = 60 * 60 * 10;
+        int interval = -1;
+        int slice = -1;
+        long seed = 0L;
+        Path output = Path.of("simulation.csv");
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--zones" -> zones = Integer.parseInt(args[i + 1]);
+                case "--units" -> units = Integer.parseInt(args[i + 1]);
+                case "--teams" -> teams = Integer.parseInt(args[i + 1]);
+                case "--ticks" -> ticks = Integer.parseInt(args[i + 1]);
+                case "--interval" -> interval = Integer.parseInt(args[i + 1]);
+                case "--slice" -> slice = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--output" -> output = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (zones < 1 || units < 0 || teams < 1 || teams > 4 || ticks < 1 || interval == 0 || slice < -1) {
+            throw new IllegalArgumentException(
+                    "Expected at least 1 zone, tick and millisecond of interval, and between 1 and 4 teams.");
+        }
+
+        final var directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory == null) {
+            throw new IllegalStateException("The " + DIRECTORY_PROPERTY + " property is not set, run the simulation"
+                    + " with ./gradlew runSimulation so the plugin and its dependencies are installed.");
+        }
+
+        // Same as the server launcher, the network is never opened
+        Vars.loadLogger();
+        Vars.platform = new Platform() {};
+        Vars.net = new Net(null);
+
+        final var simulation = new Simulation(
+                Path.of(directory), zones, units, teams, ticks, interval, slice, seed, output.toAbsolutePath());
+        new HeadlessApplication(simulation, 0F, simulation::fail);
+        simulation.done.await();
+        System.exit(simulation.failed ? 1 : 0);
+    }
+
+    // Same boot sequence as the server launcher, without the console
+    @Override
+    public void setup() {
+        // One frame is one game tick whatever the speed of the host, so the runs can be compared
+        Time.setDeltaProvider(() -> 1F);
+        Core.settings.setDataDirectory(Core.files.absolute(directory.toString()));
+        Vars.loadLocales = false;
+        Vars.headless = true;
+        Vars.loadSettings();
+        Vars.init();
+        Vars.content.createBaseContent();
+        Vars.mods.loadScripts();
+        Vars.content.createModContent();
+        Vars.content.init();
+
+        add(new ApplicationListener() {
+            @Override
+            public void update() {
+                Vars.asyncCore.begin();
+            }
+        });
+        add(Vars.logic = new Logic());
+        add(Vars.netServer = new NetServer());
+        add(new ApplicationListener() {
+            @Override
+            public void update() {
+                Vars.asyncCore.end();
+            }
+        });
+
+        final var loaded = Vars.mods.getMod("domination");
+        if (loaded == null || !(loaded.main instanceof DominationPlugin domination)) {
+            throw new IllegalStateException("The domination plugin is not installed in " + Vars.modDirectory);
+        }
+        configure(domination.getDirectory());
+
+        final var commands = new CommandHandler("");
+        Vars.mods.eachClass(mod -> mod.registerServerCommands(commands));
+        Vars.mods.eachClass(mod -> mod.registerClientCommands(Vars.netServer.clientCommands));
+
+        // The application listeners registered by the plugins are timed as a whole, in their registration order
+        final var started = new ApplicationListener() {
+            @Override
+            public void update() {
+                start = System.nanoTime();
+            }
+        };
+        final var stopped = new ApplicationListener() {
+            @Override
+            public void update() {
+                record(domination, System.nanoTime() - start);
+            }
+
+            @Override
+            public void dispose() {
+                done.countDown();
+            }
+        };
+        Core.app.addListener(started);
+        Vars.mods.eachClass(Mod::init);
+        Events.fire(new EventType.ServerLoadEvent());
+        Core.app.addListener(stopped);
+        if (Core.app.getListeners().indexOf(stopped, true) - Core.app.getListeners().indexOf(started, true) == 1) {
+            throw new IllegalStateException("The plugins registered no application listener, nothing to time.");
+        }
+
+        Events.on(EventType.GameOverEvent.class, event -> winner = event.winner);
+        play(domination);
+    }
+
+    // The frames are run back to back
+    @Override
+    public void update() {
+        if (finished) {
+            return;
+        }
+        frame = System.nanoTime();
+        Time.update();
+        super.update();
+    }
+
+    private void fail(final Throwable throwable) {
+        Log.err(throwable);
+        failed = true;
+        done.countDown();
+    }
+
+    // The capture settings given on the command line, written before the plugin loads its configuration
+    private void configure(final Path plugin) {
+        if (interval == -1 && slice == -1) {
+            return;
+        }
+        try {
+            Files.createDirectories(plugin);
+            try (final var writer =
+                    new JsonWriter(Files.newBufferedWriter(plugin.resolve("config.json"), StandardCharsets.UTF_8))) {
+                writer.beginObject();
+                if (interval != -1) {
+                    writer.name("capture-interval").value(Duration.ofMillis(interval).toString());
+                }
+                if (slice != -1) {
+                    writer.name("capture-slice").value(slice);
+                }
+                writer.endObject();
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the configuration of the plugin", e);
+        }
+    }
+
+    private void play(final DominationPlugin domination) {
+        Vars.world.loadGenerator(size, size, tiles -> {
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    tiles.set(x, y, new Tile(x, y, Blocks.stone, Blocks.air, Blocks.air));
+                }
+            }
+        });
+        Vars.state.map = new Map(StringMap.of("name", "simulation"));
+        Vars.state.rules = new Rules();
+        Vars.state.rules.pvp = true;
+        Vars.state.rules.waves = false;
+        // The plugin ends the game, not the loss of the cores
+        Vars.state.rules.canGameOver = false;
+        domination.setEnabled(true);
+
+        // Each team starts from its own corner, the cores keep the teams active
+        for (int i = 0; i < teams; i++) {
+            Vars.world.tile(corner(i % 2), corner((i / 2) % 2)).setBlock(Blocks.coreShard, Team.get(1 + i), 0);
+        }
+        Vars.logic.play();
+
+        final var state = domination.getState();
+        while (state.getZones().size() < zones) {
+            final int x = CORE_MARGIN * 3 + random.nextInt(size - (CORE_MARGIN * 6));
+            final int y = CORE_MARGIN * 3 + random.nextInt(size - (CORE_MARGIN * 6));
+            state.addZone(new Zone(x * Vars.tilesize, y * Vars.tilesize, 5));
+        }
+        owners = new Team[zones];
+        Arrays.fill(owners, Team.derelict);
+
+        for (int i = 0; i < units; i++) {
+            final int team = i % teams;
+            final int x = spawn(team % 2);
+            final int y = spawn((team / 2) % 2);
+            final var unit = UnitTypes.dagger.spawn(Team.get(1 + team), x * Vars.tilesize, y * Vars.tilesize);
+            unit.controller(new RushAI(domination));
+        }
+    }
+
+    private int corner(final int side) {
+        return side == 0 ? CORE_MARGIN : size - 1 - CORE_MARGIN;
+    }
+
+    // Next to the core, towards the center of the map
+    private int spawn(final int side) {
+        final int offset = 3 + random.nextInt(CORE_MARGIN * 2);
+        return side == 0 ? corner(side) + offset : corner(side) - offset;
+    }
+
+    private void record(final DominationPlugin domination, final long elapsed) {
+        if (finished) {
+            return;
+        }
+        plugins[tick] = elapsed;
+        frames[tick] = System.nanoTime() - frame;
+
+        // The owners are compared to the ones of the last published snapshot
+        final var published = domination.getState().getTable().getSnapshot();
+        if (published != snapshot) {
+            snapshot = published;
+            for (int i = 0; i < owners.length; i++) {
+                if (published.getTeam(i) != owners[i]) {
+                    owners[i] = published.getTeam(i);
+                    captures[tick]++;
+                }
+            }
+        }
+
+        tick++;
+        if (winner != null || tick == ticks) {
+            finished = true;
+            report(domination);
+            Core.app.exit();
+        }
+    }
+
+    private void report(final DominationPlugin domination) {
+        try (final var writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println("tick,plugin-nanos,frame-nanos,captures");
+            for (int i = 0; i < tick; i++) {
+                writer.printf("%d,%d,%d,%d%n", i, plugins[i], frames[i], captures[i]);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to write the timings", e);
+        }
+
+        System.out.printf("zones=%d units=%d teams=%d ticks=%d%n", zones, units, teams, tick);
+        print("plugin", plugins);
+        print("frame", frames);
+        System.out.printf(
+                "captures=%d winner=%s%n",
+                Arrays.stream(captures).sum(),
+                (winner != null ? winner : domination.getState().getLeaderboard().getLeader()).name);
+        System.out.printf("per tick timings written to %s%n", output);
+    }
+
+    private void print(final String name, final long[] timings) {
+        final var sorted = Arrays.copyOf(timings, tick);
+        Arrays.sort(sorted);
+        System.out.printf(
+                "%s time per tick p50=%.1fus p99=%.1fus max=%.1fus%n",
+                name,
+                percentile(sorted, 0.50) / 1000D,
+                percentile(sorted, 0.99) / 1000D,
+                percentile(sorted, 1.00) / 1000D);
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    // Walks to a random spot of its target zone, then picks another zone once its team owns it
+    private final class RushAI extends AIController {
+
+        private final DominationPlugin domination;
+        private final Vec2 destination = new Vec2();
+        private int target = -1;
+
+        private RushAI(final DominationPlugin domination) {
+            this.domination = domination;
+        }
+
+        @Override
+        public void updateUnit() {
+            final var table = domination.getState().getTable();
+            if (table.size() == 0) {
+                return;
+            }
+            if (target == -1 || (table.getTeam(target) == unit.team() && table.getCapture(target) == 100)) {
+                target = random.nextInt(table.size());
+                destination.set(
+                        table.getX(target) + ((random.nextInt(7) - 3) * Vars.tilesize),
+                        table.getY(target) + ((random.nextInt(7) - 3) * Vars.tilesize));
+            }
+            moveTo(destination, 0F);
+        }
+    }
+}
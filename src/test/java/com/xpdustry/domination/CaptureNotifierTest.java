@@ -0,0 +1,114 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import mindustry.game.Team;
+import org.junit.jupiter.api.Test;
+
+final class CaptureNotifierTest {
+
+    private static final float COOLDOWN = 10F;
+
+    private final CaptureNotifier notifier = new CaptureNotifier();
+    private final List<String> toasts = new ArrayList<>();
+
+    @Test
+    void test_cooldown_holds_captures() {
+        notifier.join(1);
+        notifier.add(Team.sharded.id, 1, 1);
+        assertEquals(1, flush(0F, 1));
+        notifier.add(Team.crux.id, 2, 2);
+        assertEquals(0, flush(5F, 1));
+        assertTrue(notifier.isPending());
+        notifier.add(Team.sharded.id, 3, 3);
+        assertEquals(1, flush(11F, 1));
+        assertEquals(
+                List.of(
+                        "1: " + captured(Team.sharded, "a zone at (1, 1)"),
+                        "1: " + captured(Team.crux, "a zone at (2, 2)") + "\n"
+                                + captured(Team.sharded, "a zone at (3, 3)")),
+                toasts);
+        assertFalse(notifier.isPending());
+    }
+
+    @Test
+    void test_log_trimmed_after_everyone_saw() {
+        notifier.join(1);
+        notifier.add(Team.sharded.id, 1, 1);
+        assertEquals(1, flush(0F, 1));
+        notifier.join(2);
+        notifier.add(Team.crux.id, 2, 2);
+        assertEquals(1, flush(5F, 1, 2));
+        assertTrue(notifier.isPending());
+        assertEquals(1, flush(11F, 1, 2));
+        assertFalse(notifier.isPending());
+        assertEquals(0, flush(30F, 1, 2));
+        notifier.add(Team.sharded.id, 3, 3);
+        assertEquals(2, flush(30F, 1, 2));
+        assertEquals(
+                List.of(
+                        "1: " + captured(Team.sharded, "a zone at (1, 1)"),
+                        "2: " + captured(Team.crux, "a zone at (2, 2)"),
+                        "1: " + captured(Team.crux, "a zone at (2, 2)"),
+                        "1: " + captured(Team.sharded, "a zone at (3, 3)"),
+                        "2: " + captured(Team.sharded, "a zone at (3, 3)")),
+                toasts);
+    }
+
+    @Test
+    void test_joiner_only_hears_later_captures() {
+        notifier.join(1);
+        notifier.add(Team.sharded.id, 1, 1);
+        notifier.join(2);
+        notifier.add(Team.crux.id, 2, 2);
+        assertEquals(2, flush(0F, 1, 2));
+        assertEquals(
+                List.of(
+                        "1: " + captured(Team.sharded, "a zone at (1, 1)") + "\n"
+                                + captured(Team.crux, "a zone at (2, 2)"),
+                        "2: " + captured(Team.crux, "a zone at (2, 2)")),
+                toasts);
+    }
+
+    @Test
+    void test_summary_over_listed() {
+        notifier.join(1);
+        for (int i = 0; i < 5; i++) {
+            notifier.add(Team.sharded.id, i, i);
+        }
+        assertEquals(1, flush(0F, 1));
+        assertEquals(
+                List.of("1: " + captured(Team.sharded, "5 zones at (0, 0), (1, 1), (2, 2) and 2 more")), toasts);
+    }
+
+    private int flush(final float now, final Integer... players) {
+        return notifier.flush(
+                List.of(players), Integer::intValue, (player, text) -> toasts.add(player + ": " + text), COOLDOWN, now);
+    }
+
+    private static String captured(final Team team, final String zones) {
+        return "[#" + team.color + "]" + team.name + "[] captured " + zones + ".";
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class ZoneCacheTest {
+
+    private static final String LEGACY_FILE = "[\"80, 120, 5\", \"rectangle: 400, 240, 6, 3\"]";
+    private static final List<Zone> ZONES = List.of(new Zone(80, 120, 5), Zone.rectangle(400, 240, 6, 3));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_legacy_file_kept_by_default() throws IOException {
+        final var file = directory.resolve("map.json");
+        Files.writeString(file, LEGACY_FILE, StandardCharsets.UTF_8);
+        load(new DominationConfig().getZoneFormat(), "map");
+        assertEquals(LEGACY_FILE, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void test_compact_file_kept_with_legacy() throws IOException {
+        final var file = directory.resolve("map.json");
+        final var compact = "[80,120,5,[\"rectangle\",400,240,6,3]]";
+        Files.writeString(file, compact, StandardCharsets.UTF_8);
+        load(ZoneFormat.LEGACY, "map");
+        assertEquals(compact, Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void test_legacy_file_migrated_with_compact() throws IOException {
+        final var file = directory.resolve("map.json");
+        Files.writeString(file, LEGACY_FILE, StandardCharsets.UTF_8);
+        load(ZoneFormat.COMPACT, "map");
+        assertEquals(
+                "[80,120,5,[\"rectangle\",400,240,6,3]]",
+                Files.readString(file, StandardCharsets.UTF_8).replaceAll("\\s", ""));
+    }
+
+    @Test
+    void test_own_write_detected() throws IOException {
+        final var file = directory.resolve("map.json");
+        final var writer = new ZoneWriter(() -> ZoneFormat.LEGACY);
+        try {
+            writer.schedule(file, ZONES);
+            assertTrue(writer.isOwnWrite(file));
+            writer.flush();
+            assertTrue(writer.isOwnWrite(file));
+            Files.writeString(file, LEGACY_FILE, StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(0L));
+            assertFalse(writer.isOwnWrite(file));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void load(final ZoneFormat format, final String map) {
+        final var writer = new ZoneWriter(() -> format);
+        final var cache = new ZoneCache(directory, writer, () -> format);
+        try {
+            cache.load();
+            assertEquals(ZONES, cache.get(map));
+            writer.flush();
+        } finally {
+            cache.close();
+            writer.close();
+        }
+    }
+}
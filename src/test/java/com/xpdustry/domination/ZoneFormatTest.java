@@ -0,0 +1,124 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+final class ZoneFormatTest {
+
+    private static final List<Zone> ZONES = List.of(
+            new Zone(80, 120, 5),
+            new Zone(-16, 0, 12),
+            Zone.rectangle(400, 240, 6, 3),
+            Zone.polygon(new int[] {0, 0, 160, 0, 80, 120}),
+            new Zone(800, 800, 1));
+
+    @Test
+    void test_legacy_round_trip() throws IOException {
+        final var json = write(ZoneFormat.LEGACY, ZONES);
+        final var zones = new ArrayList<Zone>();
+        assertEquals(ZoneFormat.LEGACY, read(json, zones));
+        assertEquals(ZONES, zones);
+    }
+
+    @Test
+    void test_compact_round_trip() throws IOException {
+        final var json = write(ZoneFormat.COMPACT, ZONES);
+        final var zones = new ArrayList<Zone>();
+        assertEquals(ZoneFormat.COMPACT, read(json, zones));
+        assertEquals(ZONES, zones);
+    }
+
+    @Test
+    void test_legacy_to_compact_migration() throws IOException {
+        final var legacy = new ArrayList<Zone>();
+        read(write(ZoneFormat.LEGACY, ZONES), legacy);
+        final var compact = new ArrayList<Zone>();
+        assertEquals(ZoneFormat.COMPACT, read(write(ZoneFormat.COMPACT, legacy), compact));
+        assertEquals(ZONES, compact);
+    }
+
+    @Test
+    void test_compact_layout() throws IOException {
+        assertEquals(
+                "[80,120,5,[\"rectangle\",400,240,6,3],[\"polygon\",0,0,160,0,80,120]]",
+                write(ZoneFormat.COMPACT, List.of(ZONES.get(0), ZONES.get(2), ZONES.get(3)))
+                        .replaceAll("\\s", ""));
+    }
+
+    @Test
+    void test_read_plugin_v3_file() throws IOException {
+        final var zones = new ArrayList<Zone>();
+        assertEquals(ZoneFormat.LEGACY, read("[\"80, 120, 5\", \"-16,0,12\", null]", zones));
+        assertEquals(List.of(new Zone(80, 120, 5), new Zone(-16, 0, 12)), zones);
+    }
+
+    @Test
+    void test_read_mixed_file() throws IOException {
+        final var zones = new ArrayList<Zone>();
+        final var json = "[80, 120, 5, \"-16, 0, 12\", [\"rectangle\", 400, 240, 6, 3],"
+                + " \"polygon: 0, 0, 160, 0, 80, 120\"]";
+        // Any string makes it a legacy file, so it gets migrated once the compact format is configured
+        assertEquals(ZoneFormat.LEGACY, read(json, zones));
+        assertEquals(ZONES.subList(0, 4), zones);
+    }
+
+    @Test
+    void test_read_empty_file() throws IOException {
+        final var zones = new ArrayList<Zone>();
+        assertEquals(ZoneFormat.COMPACT, read("[]", zones));
+        assertEquals(List.of(), zones);
+    }
+
+    @Test
+    void test_read_incomplete_circle() {
+        assertThrows(IOException.class, () -> read("[80, 120, 5, 160, 120]", new ArrayList<>()));
+    }
+
+    @Test
+    void test_read_invalid_shape() {
+        assertThrows(IOException.class, () -> read("[[\"hexagon\", 0, 0, 8]]", new ArrayList<>()));
+        assertThrows(IOException.class, () -> read("[[\"rectangle\", 0, 0, 8]]", new ArrayList<>()));
+        assertThrows(IOException.class, () -> read("[\"polygon: 0, 0, 8, 8\"]", new ArrayList<>()));
+    }
+
+    private static String write(final ZoneFormat format, final List<Zone> zones) throws IOException {
+        final var output = new StringWriter();
+        try (final var writer = new JsonWriter(output)) {
+            format.write(writer, zones);
+        }
+        return output.toString();
+    }
+
+    private static ZoneFormat read(final String json, final List<Zone> zones) throws IOException {
+        try (final var reader = new JsonReader(new StringReader(json))) {
+            return ZoneFormat.read(reader, zones);
+        }
+    }
+}
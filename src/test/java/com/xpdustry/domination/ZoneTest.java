@@ -0,0 +1,102 @@
+/*
+ * Domination, a "capture the zone" like gamemode plugin.
+ *
+ * Copyright (C) 2024  Xpdustry
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.xpdustry.domination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+final class ZoneTest {
+
+    @Test
+    void test_odd_rectangle_size() {
+        final var mask = Zone.rectangle(40, 40, 3, 5).getMask();
+        assertEquals(15, count(mask));
+        assertTrue(mask.contains(4, 3));
+        assertTrue(mask.contains(6, 7));
+        assertFalse(mask.contains(3, 5));
+        assertFalse(mask.contains(7, 5));
+        assertFalse(mask.contains(5, 2));
+        assertFalse(mask.contains(5, 8));
+    }
+
+    @Test
+    void test_even_rectangle_size() {
+        final var mask = Zone.rectangle(40, 40, 4, 2).getMask();
+        assertEquals(8, count(mask));
+        assertTrue(mask.contains(3, 4));
+        assertTrue(mask.contains(6, 5));
+        assertFalse(mask.contains(2, 4));
+        assertFalse(mask.contains(7, 4));
+        assertFalse(mask.contains(3, 3));
+        assertFalse(mask.contains(3, 6));
+    }
+
+    @Test
+    void test_circle_edge() {
+        final var mask = new Zone(40, 40, 2).getMask();
+        assertTrue(mask.contains(7, 5));
+        assertTrue(mask.contains(5, 3));
+        assertTrue(mask.contains(6, 6));
+        assertFalse(mask.contains(7, 6));
+        assertFalse(mask.contains(8, 5));
+        assertEquals(13, count(mask));
+    }
+
+    @Test
+    void test_polygon_edge() {
+        final var zone = Zone.polygon(new int[] {0, 0, 80, 0, 40, 56});
+        final var mask = zone.getMask();
+        assertTrue(mask.contains(0, 0));
+        assertFalse(mask.contains(10, 0));
+        assertTrue(mask.contains(5, 6));
+        assertFalse(mask.contains(4, 6));
+        assertFalse(mask.contains(5, 7));
+    }
+
+    @Test
+    void test_polygon_center_on_tile() {
+        final var zone = Zone.polygon(new int[] {0, 0, 80, 0, 40, 56});
+        assertEquals(40, zone.getX());
+        assertEquals(16, zone.getY());
+    }
+
+    @Test
+    void test_concave_polygon_center_inside() {
+        // A U shape, the average of its vertices is in the notch
+        final var zone = Zone.polygon(new int[] {0, 0, 72, 0, 72, 72, 48, 72, 48, 24, 24, 24, 24, 72, 0, 72});
+        assertEquals(0, zone.getX() % 8);
+        assertEquals(0, zone.getY() % 8);
+        assertTrue(zone.getMask().contains(zone.getX() / 8, zone.getY() / 8));
+    }
+
+    private static int count(final ZoneMask mask) {
+        int count = 0;
+        for (int y = mask.getMinY(); y <= mask.getMaxY(); y++) {
+            for (int x = mask.getMinX(); x <= mask.getMaxX(); x++) {
+                if (mask.contains(x, y)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}